@@ -0,0 +1,64 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiCluster;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiClusterer;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiMarkerModel;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiMarkerModelFactory;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Preparing search result markers: clustering the results for a zoom level and building the
+ * marker model of every cluster with the formats of the app. The SDK's marker builders are
+ * not available on a plain JVM, so only the models they are built from are measured.
+ */
+@State(Scope.Benchmark)
+public class MarkerPayloadBenchmark {
+
+    private static final String DISTANCE_ALONG_ROUTE_FORMAT = "%1$.1f km along the route";
+    private static final String CATEGORY_DISTANCE_ALONG_ROUTE_FORMAT = "%1$s, %2$.1f km along the route";
+    private static final String CLUSTER_TITLE_FORMAT = "%1$d results here, zoom in to see them";
+    private static final int OVERVIEW_ZOOM = 8;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int pointCount;
+
+    @Param({"10", "100", "1000"})
+    public int resultCount;
+
+    private List<RoutePoi> results;
+    private List<PoiCluster> unclustered;
+    private PoiMarkerModelFactory modelFactory;
+
+    @Setup
+    public void setUp() {
+        RouteGeometry route = SyntheticRoutes.route(pointCount, 1);
+        results = SyntheticRoutes.pois(route, resultCount, SyntheticRoutes.CATEGORIES[1], 2);
+        unclustered = new PoiClusterer(results).clustersAt(PoiClusterer.UNCLUSTERED_LEVEL);
+        modelFactory = new PoiMarkerModelFactory(DISTANCE_ALONG_ROUTE_FORMAT,
+                CATEGORY_DISTANCE_ALONG_ROUTE_FORMAT, CLUSTER_TITLE_FORMAT);
+    }
+
+    @Benchmark
+    public List<PoiCluster> clusterForOverview() {
+        return new PoiClusterer(results).clustersAt(PoiClusterer.levelForZoom(OVERVIEW_ZOOM));
+    }
+
+    @Benchmark
+    public List<PoiMarkerModel> buildMarkerModels() {
+        List<PoiMarkerModel> models = new ArrayList<>(unclustered.size());
+        for (PoiCluster cluster : unclustered) {
+            models.add(modelFactory.create(cluster));
+        }
+        return models;
+    }
+}
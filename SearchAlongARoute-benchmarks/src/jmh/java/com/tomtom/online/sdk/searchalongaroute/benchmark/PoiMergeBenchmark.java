@@ -0,0 +1,49 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.PoiDeduplicator;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merging the result lists of segmented and multi-category searches. Every list shares half
+ * of its POIs with the previous one, as overlapping segments and categories do.
+ */
+@State(Scope.Benchmark)
+public class PoiMergeBenchmark {
+
+    private static final int LIST_COUNT = 3;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int pointCount;
+
+    @Param({"100", "10000"})
+    public int resultsPerList;
+
+    private List<List<RoutePoi>> resultLists;
+
+    @Setup
+    public void setUp() {
+        RouteGeometry route = SyntheticRoutes.route(pointCount, 1);
+        List<RoutePoi> pois = SyntheticRoutes.pois(route, resultsPerList * (LIST_COUNT + 1) / 2,
+                SyntheticRoutes.CATEGORIES[0], 2);
+        resultLists = new ArrayList<>(LIST_COUNT);
+        for (int list = 0; list < LIST_COUNT; list++) {
+            int first = list * resultsPerList / 2;
+            resultLists.add(new ArrayList<>(pois.subList(first, first + resultsPerList)));
+        }
+    }
+
+    @Benchmark
+    public List<RoutePoi> deduplicate() {
+        return PoiDeduplicator.merge(resultLists);
+    }
+}
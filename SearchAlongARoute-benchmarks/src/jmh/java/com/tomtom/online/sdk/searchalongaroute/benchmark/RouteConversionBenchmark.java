@@ -0,0 +1,62 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Conversion of route coordinates into a {@link RouteGeometry} and back, as done for every
+ * planned route. The SDK's {@code LatLng} is not available on a plain JVM, so coordinates
+ * are converted from and to degree arrays.
+ */
+@State(Scope.Benchmark)
+public class RouteConversionBenchmark {
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int pointCount;
+
+    private int[] coordinatesE7;
+    private double[] coordinates;
+    private RouteGeometry route;
+
+    @Setup
+    public void setUp() {
+        coordinatesE7 = SyntheticRoutes.routeE7(pointCount, 1);
+        route = RouteGeometry.fromE7(coordinatesE7);
+        coordinates = new double[pointCount * 2];
+        for (int i = 0; i < pointCount; i++) {
+            coordinates[i * 2] = route.getLatitude(i);
+            coordinates[i * 2 + 1] = route.getLongitude(i);
+        }
+    }
+
+    @Benchmark
+    public RouteGeometry fromDegrees() {
+        return RouteGeometry.fromDegrees(coordinates);
+    }
+
+    @Benchmark
+    public RouteGeometry fromE7() {
+        return RouteGeometry.fromE7(coordinatesE7);
+    }
+
+    @Benchmark
+    public double[] toDegrees() {
+        double[] degrees = new double[route.getPointCount() * 2];
+        for (int i = 0; i < route.getPointCount(); i++) {
+            degrees[i * 2] = route.getLatitude(i);
+            degrees[i * 2 + 1] = route.getLongitude(i);
+        }
+        return degrees;
+    }
+
+    @Benchmark
+    public long fingerprint() {
+        // The fingerprint is cached per geometry, so it is computed on a fresh one.
+        return RouteGeometry.fromE7(coordinatesE7).getFingerprint();
+    }
+}
@@ -0,0 +1,73 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteProjector;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegment;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegmenter;
+import com.tomtom.online.sdk.searchalongaroute.poi.PoiIndex;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Corridor and projection math: projecting search results onto the route, splitting the
+ * route into search segments, and a corridor query of the local POI index.
+ */
+@State(Scope.Benchmark)
+public class RouteCorridorBenchmark {
+
+    private static final int POI_COUNT = 1000;
+    private static final int INDEX_POI_COUNT = 100_000;
+    private static final double SEGMENT_LENGTH_METERS = 100_000;
+    private static final double SEGMENT_OVERLAP_METERS = 2_000;
+    private static final double CORRIDOR_METERS = 1_000;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int pointCount;
+
+    private RouteGeometry route;
+    private RouteProjector projector;
+    private List<RoutePoi> pois;
+    private PoiIndex poiIndex;
+
+    @Setup
+    public void setUp() {
+        route = SyntheticRoutes.route(pointCount, 1);
+        projector = RouteProjector.build(route);
+        pois = SyntheticRoutes.pois(route, POI_COUNT, SyntheticRoutes.CATEGORIES[0], 2);
+        poiIndex = SyntheticRoutes.poiIndex(route, INDEX_POI_COUNT, 3);
+    }
+
+    @Benchmark
+    public RouteProjector buildProjector() {
+        return RouteProjector.build(route);
+    }
+
+    @Benchmark
+    public double projectPois() {
+        double sum = 0;
+        for (RoutePoi poi : pois) {
+            sum += projector.distanceAlongRoute(poi.getLatitude(), poi.getLongitude());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<RouteSegment> splitIntoSegments() {
+        return RouteSegmenter.split(route, SEGMENT_LENGTH_METERS, SEGMENT_OVERLAP_METERS);
+    }
+
+    @Benchmark
+    public int queryCorridor() {
+        final int[] found = new int[1];
+        poiIndex.queryCorridor(route, CORRIDOR_METERS, "restaurant",
+                (poi, distanceFromRouteMeters, distanceAlongRouteMeters) -> found[0]++);
+        return found[0];
+    }
+}
@@ -0,0 +1,55 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RoutePyramid;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSimplifier;
+import com.tomtom.online.sdk.searchalongaroute.geometry.SimplifiedRoute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Simplification of a route before an along route search, and the level-of-detail pyramid
+ * the route is drawn from.
+ */
+@State(Scope.Benchmark)
+public class RouteSimplificationBenchmark {
+
+    private static final int MAX_DETOUR_TIME = 1000;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int pointCount;
+
+    private RouteGeometry route;
+    private RoutePyramid pyramid;
+    private double[] viewport;
+
+    @Setup
+    public void setUp() {
+        route = SyntheticRoutes.route(pointCount, 1);
+        pyramid = RoutePyramid.build(route);
+        // A city sized viewport around the middle of the route.
+        int middle = pointCount / 2;
+        viewport = new double[]{
+                route.getLatitude(middle) - 0.05, route.getLongitude(middle) - 0.08,
+                route.getLatitude(middle) + 0.05, route.getLongitude(middle) + 0.08};
+    }
+
+    @Benchmark
+    public SimplifiedRoute simplifyForSearch() {
+        return RouteSimplifier.simplify(route, RouteSimplifier.toleranceForDetour(MAX_DETOUR_TIME));
+    }
+
+    @Benchmark
+    public RoutePyramid buildPyramid() {
+        return RoutePyramid.build(route);
+    }
+
+    @Benchmark
+    public int[] clipFinestLevel() {
+        return pyramid.clip(pyramid.getLevelCount() - 1, viewport[0], viewport[1], viewport[2], viewport[3]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.tomtom.online.sdk.searchalongaroute.benchmark;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.poi.PoiIndex;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible inputs for the benchmarks. Routes are random walks with the point spacing
+ * and the gentle turns of a planned road route, starting in Amsterdam; POIs are scattered
+ * within a few hundred metres of a route.
+ */
+final class SyntheticRoutes {
+
+    static final String[] CATEGORIES = {"petrol station", "restaurant", "atm", "parking", "hotel"};
+
+    private static final double START_LATITUDE = 52.37;
+    private static final double START_LONGITUDE = 4.89;
+    private static final double MEAN_POINT_SPACING_METERS = 30;
+    private static final double MAX_TURN_RADIANS = 0.2;
+    private static final double MAX_POI_OFFSET_METERS = 500;
+
+    private SyntheticRoutes() {
+    }
+
+    /**
+     * Packed E7 coordinates of a route of {@code pointCount} points.
+     */
+    static int[] routeE7(int pointCount, long seed) {
+        Random random = new Random(seed);
+        int[] coordinatesE7 = new int[pointCount * 2];
+        double latitude = START_LATITUDE;
+        double longitude = START_LONGITUDE;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < pointCount; i++) {
+            coordinatesE7[i * 2] = RouteGeometry.toE7(latitude);
+            coordinatesE7[i * 2 + 1] = RouteGeometry.toE7(longitude);
+            heading += (random.nextDouble() * 2 - 1) * MAX_TURN_RADIANS;
+            double step = MEAN_POINT_SPACING_METERS * (0.5 + random.nextDouble());
+            latitude += Math.cos(heading) * step / GeoMath.METERS_PER_DEGREE;
+            longitude += Math.sin(heading) * step / GeoMath.metersPerDegreeLongitude(latitude);
+        }
+        return coordinatesE7;
+    }
+
+    static RouteGeometry route(int pointCount, long seed) {
+        return RouteGeometry.fromE7(routeE7(pointCount, seed));
+    }
+
+    /**
+     * {@code count} POIs near the route, with their distance along the route taken from the
+     * route point they were scattered around.
+     */
+    static List<RoutePoi> pois(RouteGeometry route, int count, String category, long seed) {
+        Random random = new Random(seed);
+        List<RoutePoi> pois = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int point = random.nextInt(route.getPointCount());
+            double latitude = route.getLatitude(point) + offsetDegrees(random);
+            double longitude = route.getLongitude(point) + offsetDegrees(random) * 1.6;
+            pois.add(new RoutePoi("poi-" + seed + "-" + i, "POI " + i, i + " Main Street",
+                    latitude, longitude, route.getDistanceAlongRoute(point), category));
+        }
+        return pois;
+    }
+
+    static PoiIndex poiIndex(RouteGeometry route, int count, long seed) {
+        Random random = new Random(seed);
+        PoiIndex.Builder builder = new PoiIndex.Builder(count);
+        for (int i = 0; i < count; i++) {
+            int point = random.nextInt(route.getPointCount());
+            builder.add("poi-" + i, "POI " + i, i + " Main Street", CATEGORIES[i % CATEGORIES.length],
+                    route.getLatitude(point) + offsetDegrees(random) * 4,
+                    route.getLongitude(point) + offsetDegrees(random) * 6);
+        }
+        return builder.build();
+    }
+
+    private static double offsetDegrees(Random random) {
+        return (random.nextDouble() * 2 - 1) * MAX_POI_OFFSET_METERS / GeoMath.METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,256 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.exec.Priority;
+import com.tomtom.online.sdk.searchalongaroute.exec.PriorityExecutor;
+import com.tomtom.online.sdk.searchalongaroute.fake.FakeAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.fake.FakeReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.fake.FakeRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.fake.LatencyModel;
+import com.tomtom.online.sdk.searchalongaroute.metrics.LatencyHistogram;
+import com.tomtom.online.sdk.searchalongaroute.metrics.ServiceMetrics;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.replay.ServiceArchive;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.QueryAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.ResiliencePolicy;
+import com.tomtom.online.sdk.searchalongaroute.search.ResilientAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.search.SegmentedAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.SimplifyingAlongRouteSearch;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Runs a trip file through a {@link BatchRunner} and writes the per-trip results as CSV:
+ * <pre>
+ * BatchMain trips.csv results.csv [--replay services.archive | --record services.archive]
+ *     [--parallelism 8] [--geocode-latency fixed:80] [--route-latency uniform:200:600]
+ *     [--search-latency tail:150:2000:0.05] [--failure-rate 0.01] [--seed 1]
+ *     [--max-detour-time 1000] [--limit 10]
+ * </pre>
+ * The services are local fakes, or with {@code --replay} the responses of a
+ * {@link ServiceArchive} recorded by the app or by an earlier run, answered with the recorded
+ * latency unless a latency is given. With {@code --record}, the responses of the fakes and
+ * their latency are recorded to an archive. Latencies are in the form of
+ * {@link LatencyModel#parse}. Searches go
+ * through the resilient segmented search of the app, as they do when they are recorded,
+ * on executors sized as those of the app; their queue metrics are printed at the end.
+ */
+public final class BatchMain {
+
+    /**
+     * As in the app, which searches this many segments of a route at a time.
+     */
+    private static final int MAX_CONCURRENT_SEGMENTS = 4;
+    private static final int IO_THREADS = MAX_CONCURRENT_SEGMENTS + 2;
+
+    private BatchMain() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchMain <trips.csv> <results.csv> [--replay archive | --record archive]"
+                    + " [--parallelism n]"
+                    + " [--geocode-latency spec] [--route-latency spec] [--search-latency spec]"
+                    + " [--failure-rate x] [--seed n] [--max-detour-time s] [--limit n]");
+            System.exit(2);
+        }
+        String replayArchive = null;
+        String recordArchive = null;
+        int parallelism = 8;
+        String geocodeLatency = null;
+        String routeLatency = null;
+        String searchLatency = null;
+        double failureRate = 0;
+        long seed = 1;
+        int maxDetourTime = 1000;
+        int limit = 10;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + args[i]);
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--replay":
+                    replayArchive = value;
+                    break;
+                case "--record":
+                    recordArchive = value;
+                    break;
+                case "--parallelism":
+                    parallelism = Integer.parseInt(value);
+                    break;
+                case "--geocode-latency":
+                    geocodeLatency = value;
+                    break;
+                case "--route-latency":
+                    routeLatency = value;
+                    break;
+                case "--search-latency":
+                    searchLatency = value;
+                    break;
+                case "--failure-rate":
+                    failureRate = Double.parseDouble(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--max-detour-time":
+                    maxDetourTime = Integer.parseInt(value);
+                    break;
+                case "--limit":
+                    limit = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (replayArchive != null && recordArchive != null) {
+            throw new IllegalArgumentException("--replay and --record exclude each other");
+        }
+
+        List<Trip> trips;
+        try (Reader reader = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+            trips = TripFile.read(reader);
+        }
+
+        ServiceMetrics metrics = new ServiceMetrics();
+        PriorityExecutor ioExecutor = new PriorityExecutor("io", IO_THREADS, 1, metrics);
+        PriorityExecutor computationExecutor = new PriorityExecutor("computation",
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 1, metrics);
+        Scheduler ioScheduler = ioExecutor.getScheduler(Priority.USER);
+        Scheduler computationScheduler = computationExecutor.getScheduler(Priority.USER);
+        Random random = new Random(seed);
+        ReverseGeocoder reverseGeocoder;
+        RoutePlanner routePlanner;
+        AlongRouteSearch corridorSearch;
+        ServiceArchive archive = null;
+        if (replayArchive != null) {
+            archive = new ServiceArchive(new File(replayArchive));
+            reverseGeocoder = replayReverseGeocoder(archive, latency(geocodeLatency, null, random), ioScheduler);
+            routePlanner = replayRoutePlanner(archive, latency(routeLatency, null, random), ioScheduler);
+            corridorSearch = replayAlongRouteSearch(archive, latency(searchLatency, null, random), ioScheduler);
+        } else {
+            // The fakes stand in for remote services, so their delays do not take executor threads.
+            reverseGeocoder = new FakeReverseGeocoder(latency(geocodeLatency, "fixed:80", random),
+                    failureRate, random, Schedulers.io());
+            routePlanner = new FakeRoutePlanner(latency(routeLatency, "uniform:200:600", random),
+                    failureRate, random, Schedulers.io());
+            corridorSearch = new FakeAlongRouteSearch(latency(searchLatency, "tail:150:2000:0.05", random),
+                    failureRate, random, Schedulers.io());
+            if (recordArchive != null) {
+                archive = new ServiceArchive(new File(recordArchive));
+                reverseGeocoder = new RecordingReverseGeocoder(reverseGeocoder, archive);
+                routePlanner = new RecordingRoutePlanner(routePlanner, archive);
+                corridorSearch = new RecordingAlongRouteSearch(corridorSearch, archive);
+            }
+        }
+        AlongRouteSearch search = new SegmentedAlongRouteSearch(
+                new SimplifyingAlongRouteSearch(
+                        new ResilientAlongRouteSearch(corridorSearch, new ResiliencePolicy.Builder().build(),
+                                ioScheduler, random)),
+                ioScheduler, MAX_CONCURRENT_SEGMENTS);
+        BatchRunner runner = new BatchRunner(reverseGeocoder, routePlanner,
+                new QueryAlongRouteSearch(search, computationScheduler),
+                parallelism, maxDetourTime, limit);
+
+        LatencyHistogram totals = new LatencyHistogram();
+        LatencyHistogram firstResults = new LatencyHistogram();
+        long errorCount = 0;
+        long start = System.nanoTime();
+        try (Writer output = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(args[1]), StandardCharsets.UTF_8))) {
+            TripResultCsvWriter csv = new TripResultCsvWriter(output);
+            for (TripResult result : runner.run(trips).blockingIterable()) {
+                csv.write(result);
+                if (result.isSuccessful()) {
+                    totals.recordNanos((long) (result.getTotalMillis() * 1e6));
+                    firstResults.recordNanos((long) (result.getFirstResultsMillis() * 1e6));
+                } else {
+                    errorCount++;
+                }
+            }
+        }
+        ioExecutor.shutdown();
+        computationExecutor.shutdown();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.US,
+                "%d trips in %.1f s (%.1f trips/s), %d failed; total p50 %.0f ms, p95 %.0f ms;"
+                        + " first results p50 %.0f ms, p95 %.0f ms",
+                trips.size(), elapsedSeconds, trips.size() / elapsedSeconds, errorCount,
+                totals.getPercentileMillis(50), totals.getPercentileMillis(95),
+                firstResults.getPercentileMillis(50), firstResults.getPercentileMillis(95)));
+        System.out.println(metrics.toDebugText());
+        if (archive != null) {
+            System.out.println(archive);
+        }
+    }
+
+    private static ReverseGeocoder replayReverseGeocoder(ServiceArchive archive, final LatencyModel latency,
+                                                         Scheduler scheduler) {
+        if (latency == null) {
+            return new ReplayReverseGeocoder(archive, scheduler);
+        }
+        return new ReplayReverseGeocoder(archive, scheduler) {
+            @Override
+            protected long latencyMillis(long recordedLatencyMillis) {
+                return latency.nextLatencyMillis();
+            }
+        };
+    }
+
+    private static RoutePlanner replayRoutePlanner(ServiceArchive archive, final LatencyModel latency,
+                                                   Scheduler scheduler) {
+        if (latency == null) {
+            return new ReplayRoutePlanner(archive, scheduler);
+        }
+        return new ReplayRoutePlanner(archive, scheduler) {
+            @Override
+            protected long latencyMillis(long recordedLatencyMillis) {
+                return latency.nextLatencyMillis();
+            }
+        };
+    }
+
+    private static AlongRouteSearch replayAlongRouteSearch(ServiceArchive archive, final LatencyModel latency,
+                                                           Scheduler scheduler) {
+        if (latency == null) {
+            return new ReplayAlongRouteSearch(archive, scheduler);
+        }
+        return new ReplayAlongRouteSearch(archive, scheduler) {
+            @Override
+            protected long latencyMillis(long recordedLatencyMillis) {
+                return latency.nextLatencyMillis();
+            }
+        };
+    }
+
+    /**
+     * @param defaultSpec used when no latency was given, {@code null} for the recorded latency
+     */
+    private static LatencyModel latency(String spec, String defaultSpec, Random random) {
+        String latencySpec = spec != null ? spec : defaultSpec;
+        return latencySpec != null ? LatencyModel.parse(latencySpec, random) : null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.search.QueryAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.functions.Consumer;
+
+/**
+ * Runs {@link Trip}s through the flow of the search along a route screen without any UI:
+ * the departure and then the destination are reverse geocoded to the nearest addresses, a
+ * route is planned between them and searched along for the query of the trip, a single
+ * query progressively and comma separated queries as a multi-category search. The services
+ * are passed in, so the same flow runs against the online services or against local fakes.
+ * <p>
+ * A failing trip does not stop the others; its {@link TripResult} names the failed stage.
+ */
+public class BatchRunner {
+
+    private final ReverseGeocoder reverseGeocoder;
+    private final RoutePlanner routePlanner;
+    private final QueryAlongRouteSearch querySearch;
+    private final int maxConcurrentTrips;
+    private final int maxDetourTime;
+    private final int limit;
+
+    /**
+     * @param maxConcurrentTrips number of trips in flight at once
+     */
+    public BatchRunner(ReverseGeocoder reverseGeocoder, RoutePlanner routePlanner, QueryAlongRouteSearch querySearch,
+                       int maxConcurrentTrips, int maxDetourTime, int limit) {
+        if (maxConcurrentTrips < 1) {
+            throw new IllegalArgumentException("maxConcurrentTrips must be positive: " + maxConcurrentTrips);
+        }
+        this.reverseGeocoder = reverseGeocoder;
+        this.routePlanner = routePlanner;
+        this.querySearch = querySearch;
+        this.maxConcurrentTrips = maxConcurrentTrips;
+        this.maxDetourTime = maxDetourTime;
+        this.limit = limit;
+    }
+
+    /**
+     * Runs the trips with at most {@code maxConcurrentTrips} in flight, and emits their
+     * results in the order they complete.
+     */
+    public Flowable<TripResult> run(List<Trip> trips) {
+        return Flowable.fromIterable(trips)
+                .flatMapSingle(this::runTrip, false, maxConcurrentTrips);
+    }
+
+    /**
+     * Runs a single trip; the returned single never fails.
+     */
+    public Single<TripResult> runTrip(final Trip trip) {
+        return Single.defer(() -> {
+            final TripResult.Builder result = new TripResult.Builder(trip);
+            final String[] stage = {TripResult.STAGE_DEPARTURE};
+            final long start = System.nanoTime();
+            return timed(reverseGeocode(trip.getDeparture()), result::departureMillis)
+                    .flatMap(departure -> {
+                        stage[0] = TripResult.STAGE_DESTINATION;
+                        return timed(reverseGeocode(trip.getDestination()), result::destinationMillis)
+                                .flatMap(destination -> {
+                                    stage[0] = TripResult.STAGE_PLAN_ROUTE;
+                                    return timed(routePlanner.planRoute(departure, destination, null),
+                                            result::planRouteMillis);
+                                });
+                    })
+                    .flatMap(route -> {
+                        result.routePointCount(route.getPointCount());
+                        stage[0] = TripResult.STAGE_SEARCH;
+                        return search(route, trip.getQuery(), result);
+                    })
+                    .map(results -> result.results(results)
+                            .totalMillis(millisSince(start))
+                            .build())
+                    .onErrorReturn(error -> result.failed(stage[0], error)
+                            .totalMillis(millisSince(start))
+                            .build());
+        });
+    }
+
+    private Single<GeoPosition> reverseGeocode(final GeoPosition position) {
+        return reverseGeocoder.reverseGeocode(position)
+                .switchIfEmpty(Single.defer(() -> Single.<GeoPosition>error(
+                        new NoSuchElementException("No address near " + position))));
+    }
+
+    private Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                          final TripResult.Builder result) {
+        return Single.defer(() -> {
+            final long start = System.nanoTime();
+            final AtomicBoolean firstResults = new AtomicBoolean();
+            return querySearch.search(route, query, maxDetourTime, limit)
+                    .doOnNext(results -> {
+                        if (firstResults.compareAndSet(false, true)) {
+                            result.firstResultsMillis(millisSince(start));
+                        }
+                    })
+                    .lastOrError()
+                    .doOnEvent((results, error) -> result.searchMillis(millisSince(start)));
+        });
+    }
+
+    /**
+     * Records the time from the subscription to the success or the failure of a stage.
+     */
+    private static <T> Single<T> timed(final Single<T> stage, final Consumer<Double> recorder) {
+        return Single.defer(() -> {
+            final long start = System.nanoTime();
+            return stage.doOnEvent((value, error) -> recorder.accept(millisSince(start)));
+        });
+    }
+
+    private static double millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e6;
+    }
+}
@@ -0,0 +1,45 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+
+/**
+ * A departure, a destination and a search text, as a user enters them on the map.
+ */
+public final class Trip {
+
+    private final String id;
+    private final GeoPosition departure;
+    private final GeoPosition destination;
+    private final String query;
+
+    public Trip(String id, GeoPosition departure, GeoPosition destination, String query) {
+        this.id = id;
+        this.departure = departure;
+        this.destination = destination;
+        this.query = query;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public GeoPosition getDeparture() {
+        return departure;
+    }
+
+    public GeoPosition getDestination() {
+        return destination;
+    }
+
+    /**
+     * @return the search text, a single query or comma separated queries
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return id + " " + departure + " -> " + destination + " \"" + query + "\"";
+    }
+}
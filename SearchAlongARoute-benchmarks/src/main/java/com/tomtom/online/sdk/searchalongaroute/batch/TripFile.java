@@ -0,0 +1,55 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads trips from a text file with one trip per line:
+ * <pre>
+ * id,departureLatitude,departureLongitude,destinationLatitude,destinationLongitude,query
+ * </pre>
+ * The query is the rest of the line, so it may hold the comma separated queries of a
+ * multi-category search. Blank lines and lines starting with {@code #} are skipped.
+ */
+public final class TripFile {
+
+    private static final int FIELD_COUNT = 6;
+
+    private TripFile() {
+    }
+
+    /**
+     * @throws IOException when a line is not a valid trip; the message names the line
+     */
+    public static List<Trip> read(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        List<Trip> trips = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",", FIELD_COUNT);
+            if (fields.length < FIELD_COUNT || fields[0].trim().isEmpty() || fields[5].trim().isEmpty()) {
+                throw new IOException("Line " + lineNumber + ": expected " + FIELD_COUNT + " fields");
+            }
+            try {
+                trips.add(new Trip(fields[0].trim(),
+                        new GeoPosition(Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[2].trim())),
+                        new GeoPosition(Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim())),
+                        fields[5].trim()));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + ": invalid coordinate", e);
+            }
+        }
+        return trips;
+    }
+}
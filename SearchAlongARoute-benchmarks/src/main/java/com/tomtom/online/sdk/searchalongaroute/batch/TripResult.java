@@ -0,0 +1,178 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link Trip}: the latency of every stage and the search results. Durations
+ * are in milliseconds, and durations and counts of the stages a failed trip did not reach
+ * are {@link #NOT_REACHED}.
+ */
+public final class TripResult {
+
+    public static final double NOT_REACHED = -1;
+
+    public static final String STAGE_DEPARTURE = "departure";
+    public static final String STAGE_DESTINATION = "destination";
+    public static final String STAGE_PLAN_ROUTE = "planRoute";
+    public static final String STAGE_SEARCH = "search";
+
+    private final Trip trip;
+    private final String failedStage;
+    private final Throwable error;
+    private final double departureMillis;
+    private final double destinationMillis;
+    private final double planRouteMillis;
+    private final double firstResultsMillis;
+    private final double searchMillis;
+    private final double totalMillis;
+    private final int routePointCount;
+    private final List<RoutePoi> results;
+
+    private TripResult(Builder builder) {
+        this.trip = builder.trip;
+        this.failedStage = builder.failedStage;
+        this.error = builder.error;
+        this.departureMillis = builder.departureMillis;
+        this.destinationMillis = builder.destinationMillis;
+        this.planRouteMillis = builder.planRouteMillis;
+        this.firstResultsMillis = builder.firstResultsMillis;
+        this.searchMillis = builder.searchMillis;
+        this.totalMillis = builder.totalMillis;
+        this.routePointCount = builder.routePointCount;
+        this.results = builder.results != null
+                ? Collections.unmodifiableList(builder.results) : Collections.<RoutePoi>emptyList();
+    }
+
+    public Trip getTrip() {
+        return trip;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    /**
+     * @return the stage the trip failed in, or {@code null} for a successful trip
+     */
+    public String getFailedStage() {
+        return failedStage;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return the reverse geocoding time of the departure
+     */
+    public double getDepartureMillis() {
+        return departureMillis;
+    }
+
+    /**
+     * @return the reverse geocoding time of the destination
+     */
+    public double getDestinationMillis() {
+        return destinationMillis;
+    }
+
+    public double getPlanRouteMillis() {
+        return planRouteMillis;
+    }
+
+    /**
+     * @return the time from the start of the search until the first results, which a user
+     * sees before the search completes
+     */
+    public double getFirstResultsMillis() {
+        return firstResultsMillis;
+    }
+
+    public double getSearchMillis() {
+        return searchMillis;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public int getRoutePointCount() {
+        return routePointCount;
+    }
+
+    public List<RoutePoi> getResults() {
+        return results;
+    }
+
+    public static final class Builder {
+
+        private final Trip trip;
+        private String failedStage;
+        private Throwable error;
+        private double departureMillis = NOT_REACHED;
+        private double destinationMillis = NOT_REACHED;
+        private double planRouteMillis = NOT_REACHED;
+        private double firstResultsMillis = NOT_REACHED;
+        private double searchMillis = NOT_REACHED;
+        private double totalMillis = NOT_REACHED;
+        private int routePointCount = (int) NOT_REACHED;
+        private List<RoutePoi> results;
+
+        public Builder(Trip trip) {
+            this.trip = trip;
+        }
+
+        public Builder failed(String stage, Throwable error) {
+            this.failedStage = stage;
+            this.error = error;
+            return this;
+        }
+
+        public Builder departureMillis(double millis) {
+            this.departureMillis = millis;
+            return this;
+        }
+
+        public Builder destinationMillis(double millis) {
+            this.destinationMillis = millis;
+            return this;
+        }
+
+        public Builder planRouteMillis(double millis) {
+            this.planRouteMillis = millis;
+            return this;
+        }
+
+        public Builder firstResultsMillis(double millis) {
+            this.firstResultsMillis = millis;
+            return this;
+        }
+
+        public Builder searchMillis(double millis) {
+            this.searchMillis = millis;
+            return this;
+        }
+
+        public Builder totalMillis(double millis) {
+            this.totalMillis = millis;
+            return this;
+        }
+
+        public Builder routePointCount(int count) {
+            this.routePointCount = count;
+            return this;
+        }
+
+        public Builder results(List<RoutePoi> results) {
+            this.results = results;
+            return this;
+        }
+
+        public TripResult build() {
+            return new TripResult(this);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.tomtom.online.sdk.searchalongaroute.batch;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes {@link TripResult}s as CSV, one row per trip after a header row. Fields are quoted
+ * as in RFC 4180 when they hold a comma, a quote or a line break. The results of a trip are
+ * a single field of POI ids separated by {@code ;}, in the order they were found.
+ */
+public class TripResultCsvWriter {
+
+    private static final String HEADER = "trip_id,query,status,failed_stage,error,"
+            + "departure_ms,destination_ms,plan_route_ms,first_results_ms,search_ms,total_ms,"
+            + "route_points,result_count,result_ids";
+
+    private final Writer writer;
+    private boolean headerWritten;
+
+    public TripResultCsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    public void write(TripResult result) throws IOException {
+        if (!headerWritten) {
+            writer.write(HEADER);
+            writer.write('\n');
+            headerWritten = true;
+        }
+        StringBuilder resultIds = new StringBuilder();
+        for (RoutePoi poi : result.getResults()) {
+            if (resultIds.length() > 0) {
+                resultIds.append(';');
+            }
+            resultIds.append(poi.getId());
+        }
+        Throwable error = result.getError();
+        String[] fields = {
+                result.getTrip().getId(),
+                result.getTrip().getQuery(),
+                result.isSuccessful() ? "ok" : "error",
+                result.isSuccessful() ? "" : result.getFailedStage(),
+                error == null ? "" : error.getClass().getSimpleName() + ": " + error.getMessage(),
+                millis(result.getDepartureMillis()),
+                millis(result.getDestinationMillis()),
+                millis(result.getPlanRouteMillis()),
+                millis(result.getFirstResultsMillis()),
+                millis(result.getSearchMillis()),
+                millis(result.getTotalMillis()),
+                Integer.toString(result.getRoutePointCount()),
+                Integer.toString(result.isSuccessful() ? result.getResults().size() : -1),
+                resultIds.toString()};
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(quote(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private static String millis(double millis) {
+        return millis == TripResult.NOT_REACHED ? "-1" : String.format(Locale.US, "%.3f", millis);
+    }
+
+    private static String quote(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,88 @@
+package com.tomtom.online.sdk.searchalongaroute.fake;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Local stand-in for the along route search service with injectable latency and failures.
+ * It answers with {@code limit} synthetic POIs spread evenly along the requested route,
+ * {@link #LATERAL_OFFSET_METERS} north of it, so identical requests give identical results.
+ */
+public class FakeAlongRouteSearch implements AlongRouteSearch {
+
+    public static final double LATERAL_OFFSET_METERS = 100;
+
+    private final LatencyModel latency;
+    private final double failureRate;
+    private final Random random;
+    private final Scheduler scheduler;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public FakeAlongRouteSearch(LatencyModel latency, Scheduler scheduler) {
+        this(latency, 0, new Random(), scheduler);
+    }
+
+    /**
+     * @param failureRate fraction of requests failing with an {@link IOException}
+     * @param scheduler   the latency is waited for on
+     */
+    public FakeAlongRouteSearch(LatencyModel latency, double failureRate, Random random, Scheduler scheduler) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.random = random;
+        this.scheduler = scheduler;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> {
+            requestCount.incrementAndGet();
+            boolean fails;
+            synchronized (random) {
+                fails = random.nextDouble() < failureRate;
+            }
+            Single<Long> delay = Single.timer(latency.nextLatencyMillis(), TimeUnit.MILLISECONDS, scheduler);
+            if (fails) {
+                return delay.flatMap(tick -> Single.<List<RoutePoi>>error(new IOException("Injected failure")));
+            }
+            return delay.map(tick -> results(route, query, limit));
+        });
+    }
+
+    private static List<RoutePoi> results(RouteGeometry route, String query, int limit) {
+        List<RoutePoi> results = new ArrayList<>(limit);
+        if (route.isEmpty()) {
+            return results;
+        }
+        double latitudeOffset = LATERAL_OFFSET_METERS / GeoMath.METERS_PER_DEGREE;
+        int point = 0;
+        for (int i = 0; i < limit; i++) {
+            double distance = route.getLengthMeters() * (i + 0.5) / limit;
+            while (point < route.getPointCount() - 1 && route.getDistanceAlongRoute(point + 1) <= distance) {
+                point++;
+            }
+            String id = "fake:" + query + ":" + route.getLatitudeE7(point) + ":" + route.getLongitudeE7(point);
+            results.add(new RoutePoi(id, query + " " + (i + 1), "Fake street " + (i + 1),
+                    route.getLatitude(point) + latitudeOffset, route.getLongitude(point),
+                    route.getDistanceAlongRoute(point)));
+        }
+        return results;
+    }
+}
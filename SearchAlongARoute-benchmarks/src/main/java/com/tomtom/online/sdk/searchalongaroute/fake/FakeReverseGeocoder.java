@@ -0,0 +1,68 @@
+package com.tomtom.online.sdk.searchalongaroute.fake;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Local stand-in for the reverse geocoding service with injectable latency and failures.
+ * It answers with the position snapped to a grid of {@link #GRID_DEGREES}, about 11 metres,
+ * as if the nearest address were on the grid.
+ */
+public class FakeReverseGeocoder implements ReverseGeocoder {
+
+    public static final double GRID_DEGREES = 1e-4;
+
+    private final LatencyModel latency;
+    private final double failureRate;
+    private final Random random;
+    private final Scheduler scheduler;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public FakeReverseGeocoder(LatencyModel latency, Scheduler scheduler) {
+        this(latency, 0, new Random(), scheduler);
+    }
+
+    /**
+     * @param failureRate fraction of requests failing with an {@link IOException}
+     * @param scheduler   the latency is waited for on
+     */
+    public FakeReverseGeocoder(LatencyModel latency, double failureRate, Random random, Scheduler scheduler) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.random = random;
+        this.scheduler = scheduler;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public Maybe<GeoPosition> reverseGeocode(final GeoPosition position) {
+        return Single.defer(() -> {
+            requestCount.incrementAndGet();
+            boolean fails;
+            synchronized (random) {
+                fails = random.nextDouble() < failureRate;
+            }
+            Single<Long> delay = Single.timer(latency.nextLatencyMillis(), TimeUnit.MILLISECONDS, scheduler);
+            if (fails) {
+                return delay.flatMap(tick -> Single.<GeoPosition>error(new IOException("Injected failure")));
+            }
+            return delay.map(tick -> new GeoPosition(snap(position.getLatitude()), snap(position.getLongitude())));
+        }).toMaybe();
+    }
+
+    private static double snap(double degrees) {
+        return Math.round(degrees / GRID_DEGREES) * GRID_DEGREES;
+    }
+}
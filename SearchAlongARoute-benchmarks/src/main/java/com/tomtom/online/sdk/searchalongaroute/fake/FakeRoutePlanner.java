@@ -0,0 +1,116 @@
+package com.tomtom.online.sdk.searchalongaroute.fake;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Local stand-in for the routing service with injectable latency and failures. It answers
+ * with a route through the way points with a point every {@link #POINT_SPACING_METERS},
+ * winding sideways like a road by up to {@link #WIGGLE_AMPLITUDE_METERS}, so the route has
+ * the size and the shape that route simplification and along route search see on real
+ * routes. Identical requests give identical routes.
+ */
+public class FakeRoutePlanner implements RoutePlanner {
+
+    public static final double POINT_SPACING_METERS = 30;
+    public static final double WIGGLE_AMPLITUDE_METERS = 200;
+    public static final double WIGGLE_WAVELENGTH_METERS = 2000;
+
+    private final LatencyModel latency;
+    private final double failureRate;
+    private final Random random;
+    private final Scheduler scheduler;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public FakeRoutePlanner(LatencyModel latency, Scheduler scheduler) {
+        this(latency, 0, new Random(), scheduler);
+    }
+
+    /**
+     * @param failureRate fraction of requests failing with an {@link IOException}
+     * @param scheduler   the latency is waited for and the route is built on
+     */
+    public FakeRoutePlanner(LatencyModel latency, double failureRate, Random random, Scheduler scheduler) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.random = random;
+        this.scheduler = scheduler;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public Single<RouteGeometry> planRoute(final GeoPosition departure, final GeoPosition destination,
+                                           final GeoPosition[] wayPoints) {
+        return Single.defer(() -> {
+            requestCount.incrementAndGet();
+            boolean fails;
+            synchronized (random) {
+                fails = random.nextDouble() < failureRate;
+            }
+            Single<Long> delay = Single.timer(latency.nextLatencyMillis(), TimeUnit.MILLISECONDS, scheduler);
+            if (fails) {
+                return delay.flatMap(tick -> Single.<RouteGeometry>error(new IOException("Injected failure")));
+            }
+            return delay.map(tick -> route(departure, destination, wayPoints));
+        });
+    }
+
+    private static RouteGeometry route(GeoPosition departure, GeoPosition destination, GeoPosition[] wayPoints) {
+        List<GeoPosition> stops = new ArrayList<>();
+        stops.add(departure);
+        if (wayPoints != null) {
+            stops.addAll(Arrays.asList(wayPoints));
+        }
+        stops.add(destination);
+
+        double[] coordinates = new double[64];
+        int length = 0;
+        double distance = 0;
+        for (int leg = 0; leg < stops.size() - 1; leg++) {
+            GeoPosition from = stops.get(leg);
+            GeoPosition to = stops.get(leg + 1);
+            double legMeters = GeoMath.distanceMeters(from.getLatitude(), from.getLongitude(),
+                    to.getLatitude(), to.getLongitude());
+            int steps = Math.max(1, (int) Math.ceil(legMeters / POINT_SPACING_METERS));
+            // Unit vector perpendicular to the leg, in degrees per metre.
+            double metersPerDegreeLongitude = Math.max(1, GeoMath.metersPerDegreeLongitude(from.getLatitude()));
+            double north = (to.getLatitude() - from.getLatitude()) * GeoMath.METERS_PER_DEGREE;
+            double east = (to.getLongitude() - from.getLongitude()) * metersPerDegreeLongitude;
+            double norm = Math.max(1e-9, Math.hypot(north, east));
+            double sideLatitude = east / norm / GeoMath.METERS_PER_DEGREE;
+            double sideLongitude = -north / norm / metersPerDegreeLongitude;
+            // Every leg includes its end point; the first leg also its start point.
+            for (int step = leg == 0 ? 0 : 1; step <= steps; step++) {
+                double fraction = (double) step / steps;
+                // The wiggle vanishes at the stops, so the route passes through them.
+                double side = WIGGLE_AMPLITUDE_METERS * Math.sin(Math.PI * fraction)
+                        * Math.sin(2 * Math.PI * (distance + fraction * legMeters) / WIGGLE_WAVELENGTH_METERS);
+                if (length + 2 > coordinates.length) {
+                    coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+                }
+                coordinates[length++] = from.getLatitude() + fraction * (to.getLatitude() - from.getLatitude())
+                        + side * sideLatitude;
+                coordinates[length++] = from.getLongitude() + fraction * (to.getLongitude() - from.getLongitude())
+                        + side * sideLongitude;
+            }
+            distance += legMeters;
+        }
+        return RouteGeometry.fromDegrees(Arrays.copyOf(coordinates, length));
+    }
+}
@@ -0,0 +1,91 @@
+package com.tomtom.online.sdk.searchalongaroute.fake;
+
+import java.util.Random;
+
+/**
+ * Latency injected by the fake services.
+ */
+public abstract class LatencyModel {
+
+    public abstract long nextLatencyMillis();
+
+    /**
+     * Parses a latency model from its command line form: {@code none}, {@code fixed:<ms>},
+     * {@code uniform:<minMs>:<maxMs>} or {@code tail:<baseMs>:<slowMs>:<slowFraction>}.
+     *
+     * @throws IllegalArgumentException when {@code spec} is not one of these forms
+     */
+    public static LatencyModel parse(String spec, Random random) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    if (parts.length == 1) {
+                        return none();
+                    }
+                    break;
+                case "fixed":
+                    if (parts.length == 2) {
+                        return fixed(Long.parseLong(parts[1]));
+                    }
+                    break;
+                case "uniform":
+                    if (parts.length == 3) {
+                        return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]), random);
+                    }
+                    break;
+                case "tail":
+                    if (parts.length == 4) {
+                        return withTail(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                                Double.parseDouble(parts[3]), random);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency model: " + spec, e);
+        }
+        throw new IllegalArgumentException("Invalid latency model: " + spec);
+    }
+
+    public static LatencyModel none() {
+        return fixed(0);
+    }
+
+    public static LatencyModel fixed(final long latencyMillis) {
+        return new LatencyModel() {
+            @Override
+            public long nextLatencyMillis() {
+                return latencyMillis;
+            }
+        };
+    }
+
+    public static LatencyModel uniform(final long minMillis, final long maxMillis, final Random random) {
+        return new LatencyModel() {
+            @Override
+            public long nextLatencyMillis() {
+                synchronized (random) {
+                    return minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+                }
+            }
+        };
+    }
+
+    /**
+     * Mostly {@code baseMillis}, but with probability {@code slowFraction} the request takes
+     * {@code slowMillis} instead, like the long tail of a real service.
+     */
+    public static LatencyModel withTail(final long baseMillis, final long slowMillis, final double slowFraction,
+                                        final Random random) {
+        return new LatencyModel() {
+            @Override
+            public long nextLatencyMillis() {
+                synchronized (random) {
+                    return random.nextDouble() < slowFraction ? slowMillis : baseMillis;
+                }
+            }
+        };
+    }
+}
@@ -2,9 +2,14 @@ package com.tomtom.online.sdk.searchalongaroute;
 
 import android.app.Dialog;
 import android.content.Intent;
+import android.location.Location;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
+import android.text.TextUtils;
 import android.text.TextWatcher;
+import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
@@ -13,7 +18,9 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.google.common.base.Optional;
 import com.tomtom.online.sdk.common.location.LatLng;
@@ -25,54 +32,58 @@ import com.tomtom.online.sdk.map.MapProperties;
 import com.tomtom.online.sdk.map.Marker;
 import com.tomtom.online.sdk.map.MarkerBuilder;
 import com.tomtom.online.sdk.map.OnMapReadyCallback;
-import com.tomtom.online.sdk.map.Route;
-import com.tomtom.online.sdk.map.RouteBuilder;
 import com.tomtom.online.sdk.map.SingleLayoutBalloonViewAdapter;
 import com.tomtom.online.sdk.map.TomtomMap;
 import com.tomtom.online.sdk.map.TomtomMapCallback;
-import com.tomtom.online.sdk.routing.OnlineRoutingApi;
-import com.tomtom.online.sdk.routing.RoutingApi;
-import com.tomtom.online.sdk.routing.RoutingException;
-import com.tomtom.online.sdk.routing.route.RouteCalculationDescriptor;
-import com.tomtom.online.sdk.routing.route.RouteCallback;
-import com.tomtom.online.sdk.routing.route.RouteDescriptor;
-import com.tomtom.online.sdk.routing.route.RoutePlan;
-import com.tomtom.online.sdk.routing.route.RouteSpecification;
-import com.tomtom.online.sdk.routing.route.description.RouteType;
-import com.tomtom.online.sdk.routing.route.information.FullRoute;
-import com.tomtom.online.sdk.search.OnlineSearchApi;
-import com.tomtom.online.sdk.search.SearchApi;
-import com.tomtom.online.sdk.search.data.alongroute.AlongRouteSearchQueryBuilder;
-import com.tomtom.online.sdk.search.data.alongroute.AlongRouteSearchResponse;
-import com.tomtom.online.sdk.search.data.alongroute.AlongRouteSearchResult;
-import com.tomtom.online.sdk.search.data.reversegeocoder.ReverseGeocoderSearchQueryBuilder;
-import com.tomtom.online.sdk.search.data.reversegeocoder.ReverseGeocoderSearchResponse;
-
-import org.jetbrains.annotations.NotNull;
-
+import com.tomtom.online.sdk.searchalongaroute.exec.Priority;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegment;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiMarkerLayer;
+import com.tomtom.online.sdk.searchalongaroute.marker.PoiMarkerModelFactory;
+import com.tomtom.online.sdk.searchalongaroute.metrics.ServiceMetrics;
+import com.tomtom.online.sdk.searchalongaroute.route.RouteLayer;
+import com.tomtom.online.sdk.searchalongaroute.search.MultiCategoryAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import io.reactivex.Completable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.observers.DisposableSingleObserver;
-import io.reactivex.schedulers.Schedulers;
 
 import static java.util.Arrays.asList;
 
 public class MainActivity extends AppCompatActivity implements OnMapReadyCallback,
         TomtomMapCallback.OnMapLongClickListener {
 
+    private static final String TAG = "SearchAlongARoute";
+    private static final String METRICS_FILE_NAME = "metrics.json";
+    private static final long METRICS_OVERLAY_REFRESH_MILLIS = 1000;
+
+    private SearchAlongRouteViewModel viewModel;
     private TomtomMap tomtomMap;
-    private SearchApi searchApi;
-    private RoutingApi routingApi;
-    private Route route;
-    private LatLng departurePosition;
-    private LatLng destinationPosition;
-    private LatLng wayPointPosition;
+    private PoiMarkerLayer searchResultMarkers;
+    private RouteLayer routeLayer;
+    private final Handler metricsOverlayHandler = new Handler(Looper.getMainLooper());
+    private final Runnable metricsOverlayRefresh = new Runnable() {
+        @Override
+        public void run() {
+            textViewMetrics.setText(viewModel.getServiceMetrics().toDebugText());
+            metricsOverlayHandler.postDelayed(this, METRICS_OVERLAY_REFRESH_MILLIS);
+        }
+    };
     private Icon departureIcon;
     private Icon destinationIcon;
     private Button btnHelp;
+    private TextView textViewMetrics;
     private ImageButton btnClear;
     private ImageButton btnGasStation;
     private ImageButton btnRestaurant;
@@ -85,6 +96,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        viewModel = new ViewModelProvider(this).get(SearchAlongRouteViewModel.class);
         initTomTomServices();
         initUIViews();
         setupUIViewListeners();
@@ -99,13 +111,67 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         }
     }
 
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (BuildConfig.DEBUG) {
+            dumpMetrics();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        metricsOverlayHandler.removeCallbacks(metricsOverlayRefresh);
+        // Requests keep running in the view model; they are disposed when it is cleared.
+        viewModel.detach();
+    }
+
     @Override
     public void onMapReady(@NonNull final TomtomMap tomtomMap) {
         this.tomtomMap = tomtomMap;
         this.tomtomMap.setMyLocationEnabled(true);
         this.tomtomMap.addOnMapLongClickListener(this);
-        this.tomtomMap.getMarkerSettings().setMarkersClustering(true);
         this.tomtomMap.getMarkerSettings().setMarkerBalloonViewAdapter(createCustomViewAdapter());
+        this.searchResultMarkers = new PoiMarkerLayer(tomtomMap, createSearchResultModelFactory(),
+                createSearchResultMarkerFactory(),
+                viewModel.getComputationExecutor().getScheduler(Priority.USER), AndroidSchedulers.mainThread(),
+                viewModel.getServiceMetrics().call(ServiceMetrics.RENDER_RESULTS));
+        this.routeLayer = new RouteLayer(tomtomMap, findViewById(R.id.mapFragment), departureIcon, destinationIcon,
+                viewModel.getComputationExecutor().getScheduler(Priority.USER), AndroidSchedulers.mainThread(),
+                viewModel.getServiceMetrics().call(ServiceMetrics.RENDER_ROUTE));
+        this.tomtomMap.addOnCameraChangedListener(cameraPosition -> {
+            searchResultMarkers.onZoomChanged(cameraPosition.getZoom());
+            routeLayer.onCameraChanged(cameraPosition);
+        });
+        restoreMap();
+    }
+
+    /**
+     * Redraws the state kept by the view model on a new map, after the activity has been
+     * recreated, and attaches to the requests still in flight. Nothing is requested again.
+     */
+    private void restoreMap() {
+        RouteGeometry routeGeometry = viewModel.getRouteGeometry();
+        if (routeGeometry != null) {
+            showRoute(routeGeometry);
+            enableSearchButtons();
+        } else if (isDeparturePositionSet()) {
+            createMarkerIfNotPresent(viewModel.getDeparturePosition(), departureIcon);
+        }
+        List<RoutePoi> displayedResults = viewModel.getDisplayedResults();
+        if (displayedResults != null && !displayedResults.isEmpty()) {
+            searchResultMarkers.show(displayedResults, viewModel.getDisplayedResultsOffsetMeters(), null);
+        }
+        viewModel.setPartialResultsListener(this::displayPartialSearchResults);
+        if (viewModel.attachReverseGeocoding(createReverseGeocodingObserver())
+                | viewModel.attachRoutePlanning(createRoutePlanningObserver())) {
+            showDialogInProgress();
+        }
+        if (viewModel.attachSearch(createSearchObserver())) {
+            disableSearchButtons();
+            showDialogInProgress();
+        }
     }
 
     @Override
@@ -113,7 +179,6 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         if (isDeparturePositionSet() && isDestinationPositionSet()) {
             clearMap();
         } else {
-            showDialogInProgress();
             handleLongClick(latLng);
         }
     }
@@ -128,51 +193,58 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     }
 
     private boolean isMapCleared() {
-        return departurePosition == null
-                && destinationPosition == null
-                && route == null;
-    }
-
-    private void handleLongClick(@NonNull LatLng latLng) {
-        searchApi.reverseGeocoding(new ReverseGeocoderSearchQueryBuilder(latLng.getLatitude(), latLng.getLongitude()).build())
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(new DisposableSingleObserver<ReverseGeocoderSearchResponse>() {
-                    @Override
-                    public void onSuccess(ReverseGeocoderSearchResponse response) {
-                        dismissDialogInProgress();
-                        processResponse(response);
-                    }
+        return viewModel.getDeparturePosition() == null
+                && viewModel.getDestinationPosition() == null
+                && viewModel.getRouteGeometry() == null;
+    }
 
-                    @Override
-                    public void onError(Throwable e) {
-                        handleApiError(e);
-                    }
+    private void handleLongClick(@NonNull final LatLng latLng) {
+        Optional<GeoPosition> cachedAddress = viewModel.getCachedReverseGeocoding(latLng);
+        if (cachedAddress != null) {
+            processReverseGeocodedAddress(cachedAddress);
+            return;
+        }
+        showDialogInProgress();
+        viewModel.reverseGeocode(latLng, createReverseGeocodingObserver());
+    }
 
-                    private void processResponse(ReverseGeocoderSearchResponse response) {
-                        if (response.hasResults()) {
-                            processFirstResult(response.getAddresses().get(0).getPosition());
-                        } else {
-                            Toast.makeText(MainActivity.this, getString(R.string.geocode_no_results), Toast.LENGTH_SHORT).show();
-                        }
-                    }
+    private DisposableSingleObserver<Optional<GeoPosition>> createReverseGeocodingObserver() {
+        return new DisposableSingleObserver<Optional<GeoPosition>>() {
+            @Override
+            public void onSuccess(Optional<GeoPosition> address) {
+                dismissDialogInProgress();
+                processReverseGeocodedAddress(address);
+            }
 
-                    private void processFirstResult(LatLng geocodedPosition) {
-                        if (!isDeparturePositionSet()) {
-                            setAndDisplayDeparturePosition(geocodedPosition);
-                        } else {
-                            destinationPosition = geocodedPosition;
-                            tomtomMap.removeMarkers();
-                            drawRoute(departurePosition, destinationPosition);
-                            enableSearchButtons();
-                        }
-                    }
+            @Override
+            public void onError(Throwable e) {
+                handleApiError(e);
+            }
+        };
+    }
 
-                    private void setAndDisplayDeparturePosition(LatLng geocodedPosition) {
-                        departurePosition = geocodedPosition;
-                        createMarkerIfNotPresent(departurePosition, departureIcon);
-                    }
-                });
+    private void processReverseGeocodedAddress(Optional<GeoPosition> address) {
+        if (address.isPresent()) {
+            processFirstResult(RouteCoordinates.toLatLng(address.get()));
+        } else {
+            Toast.makeText(MainActivity.this, getString(R.string.geocode_no_results), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void processFirstResult(LatLng geocodedPosition) {
+        if (!isDeparturePositionSet()) {
+            setAndDisplayDeparturePosition(geocodedPosition);
+        } else {
+            viewModel.setDestinationPosition(geocodedPosition);
+            tomtomMap.removeMarkers();
+            drawRoute(viewModel.getDeparturePosition(), geocodedPosition);
+            enableSearchButtons();
+        }
+    }
+
+    private void setAndDisplayDeparturePosition(LatLng geocodedPosition) {
+        viewModel.setDeparturePosition(geocodedPosition);
+        createMarkerIfNotPresent(geocodedPosition, departureIcon);
     }
 
     @Override
@@ -194,8 +266,6 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
                 .replace(R.id.mapFragment, mapFragment)
                 .commit();
         mapFragment.getAsyncMap(this);
-        searchApi = OnlineSearchApi.create(this, BuildConfig.SEARCH_API_KEY);
-        routingApi = OnlineRoutingApi.create(this, BuildConfig.ROUTING_API_KEY);
     }
 
     private void initUIViews() {
@@ -204,6 +274,7 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         editTextPois = findViewById(R.id.edittext_main_poisearch);
         btnAtm = findViewById(R.id.btn_main_atm);
         btnHelp = findViewById(R.id.btn_main_help);
+        textViewMetrics = findViewById(R.id.textview_main_metrics);
         btnClear = findViewById(R.id.btn_main_clear);
         btnGasStation = findViewById(R.id.btn_main_gasstation);
         btnRestaurant = findViewById(R.id.btn_main_restaurant);
@@ -221,10 +292,24 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         btnRestaurant.setOnClickListener(searchButtonListener);
         btnAtm.setOnClickListener(searchButtonListener);
 
+        View.OnLongClickListener addCategoryListener = v -> {
+            addSearchCategory(v, searchButtonListener);
+            return true;
+        };
+        btnGasStation.setOnLongClickListener(addCategoryListener);
+        btnRestaurant.setOnLongClickListener(addCategoryListener);
+        btnAtm.setOnLongClickListener(addCategoryListener);
+
         btnHelp.setOnClickListener(v -> {
             Intent intent = new Intent(MainActivity.this, HelpActivity.class);
             startActivity(intent);
         });
+        if (BuildConfig.DEBUG) {
+            btnHelp.setOnLongClickListener(v -> {
+                toggleMetricsOverlay();
+                return true;
+            });
+        }
         btnClear.setOnClickListener(v -> clearMap());
 
         editTextPois.addTextChangedListener(new BaseTextWatcher() {
@@ -235,6 +320,23 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         });
     }
 
+    /**
+     * Adds the category of a shortcut button to the searched queries and searches all of them.
+     */
+    private void addSearchCategory(View shortcutButton, View.OnClickListener searchButtonListener) {
+        List<String> queries = new ArrayList<>(
+                MultiCategoryAlongRouteSearch.parseQueries(editTextPois.getText().toString()));
+        String category = shortcutButton.getContentDescription().toString();
+        if (!queries.contains(category)) {
+            queries.add(category);
+        }
+        editTextPois.setText(TextUtils.join(", ", queries));
+        for (View button : asList(btnGasStation, btnRestaurant, btnAtm)) {
+            button.setSelected(queries.contains(button.getContentDescription().toString()));
+        }
+        searchButtonListener.onClick(btnSearch);
+    }
+
     @NonNull
     private View.OnClickListener getSearchButtonListener() {
         return new View.OnClickListener() {
@@ -253,79 +355,73 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
                         v.setSelected(true);
                     }
                     if (isWayPointPositionSet()) {
-                        tomtomMap.clear();
-                        drawRoute(departurePosition, destinationPosition);
+                        drawRoute(viewModel.getDeparturePosition(), viewModel.getDestinationPosition());
                     }
                     String textToSearch = editTextPois.getText().toString();
                     if (!textToSearch.isEmpty()) {
-                        tomtomMap.removeMarkers();
-                        searchAlongTheRoute(route, textToSearch);
+                        viewModel.clipRouteAhead(userPosition(),
+                                routeToSearch -> searchAlongTheRoute(routeToSearch, textToSearch));
                     }
                 }
             }
 
             private boolean isRouteSet() {
-                return route != null;
+                return viewModel.getRouteGeometry() != null;
             }
 
             private boolean isWayPointPositionSet() {
-                return wayPointPosition != null;
+                return viewModel.getWayPointPosition() != null;
             }
 
-            private void searchAlongTheRoute(Route route, final String textToSearch) {
-                final Integer MAX_DETOUR_TIME = 1000;
-                final Integer QUERY_LIMIT = 10;
+            private void searchAlongTheRoute(final RouteSegment routeToSearch, final String textToSearch) {
+                List<RoutePoi> cachedResults = viewModel.getCachedSearchResults(routeToSearch, textToSearch);
+                if (cachedResults != null) {
+                    viewModel.cancelSearch();
+                    displaySearchResults(cachedResults, textToSearch, routeToSearch.getStartOffsetMeters());
+                    return;
+                }
 
                 disableSearchButtons();
                 showDialogInProgress();
-                searchApi.alongRouteSearch(new AlongRouteSearchQueryBuilder(textToSearch, route.getCoordinates(), MAX_DETOUR_TIME)
-                        .withLimit(QUERY_LIMIT)
-                        .build())
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .subscribe(new DisposableSingleObserver<AlongRouteSearchResponse>() {
-                            @Override
-                            public void onSuccess(AlongRouteSearchResponse response) {
-                                displaySearchResults(response.getResults());
-                                dismissDialogInProgress();
-                                enableSearchButtons();
-                            }
-
-                            private void displaySearchResults(List<AlongRouteSearchResult> results) {
-                                if (!results.isEmpty()) {
-                                    for (AlongRouteSearchResult result : results) {
-                                        createAndDisplayCustomMarker(result.getPosition(), result);
-                                    }
-                                    tomtomMap.zoomToAllMarkers();
-                                } else {
-                                    Toast.makeText(MainActivity.this, String.format(getString(R.string.no_search_results), textToSearch), Toast.LENGTH_LONG).show();
-                                }
-                            }
-
-                            private void createAndDisplayCustomMarker(LatLng position, AlongRouteSearchResult result) {
-                                String address = result.getAddress().getFreeformAddress();
-                                String poiName = result.getPoi().getName();
-
-                                BaseMarkerBalloon markerBalloonData = new BaseMarkerBalloon();
-                                markerBalloonData.addProperty(getString(R.string.poi_name_key), poiName);
-                                markerBalloonData.addProperty(getString(R.string.address_key), address);
-
-                                MarkerBuilder markerBuilder = new MarkerBuilder(position)
-                                        .markerBalloon(markerBalloonData)
-                                        .shouldCluster(true);
-                                tomtomMap.addMarker(markerBuilder);
-                            }
-
-                            @Override
-                            public void onError(Throwable e) {
-                                handleApiError(e);
-                                enableSearchButtons();
-                            }
-                        });
+                viewModel.searchAlongRoute(routeToSearch, textToSearch, createSearchObserver());
             }
         };
     }
 
+    private DisposableSingleObserver<List<RoutePoi>> createSearchObserver() {
+        return new DisposableSingleObserver<List<RoutePoi>>() {
+            @Override
+            public void onSuccess(List<RoutePoi> results) {
+                // Shows results read from disk; online results are already shown, so their markers do not change.
+                displaySearchResults(results, viewModel.getSearchText(), viewModel.getSearchStartOffsetMeters());
+                dismissDialogInProgress();
+                enableSearchButtons();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                handleApiError(e);
+                enableSearchButtons();
+            }
+        };
+    }
+
+    private void displayPartialSearchResults(List<RoutePoi> results, double startOffsetMeters) {
+        viewModel.setDisplayedResults(results, startOffsetMeters);
+        searchResultMarkers.show(results, startOffsetMeters, tomtomMap::zoomToAllMarkers);
+        dismissDialogInProgress();
+    }
+
+    private void displaySearchResults(List<RoutePoi> results, String textToSearch, double startOffsetMeters) {
+        viewModel.setDisplayedResults(results, startOffsetMeters);
+        if (!results.isEmpty()) {
+            searchResultMarkers.show(results, startOffsetMeters, tomtomMap::zoomToAllMarkers);
+        } else {
+            searchResultMarkers.clear();
+            Toast.makeText(MainActivity.this, String.format(getString(R.string.no_search_results), textToSearch), Toast.LENGTH_LONG).show();
+        }
+    }
+
     private void disableSearchButtons() {
         btnSearch.setEnabled(false);
         btnGasStation.setEnabled(false);
@@ -360,28 +456,60 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         }
     }
 
+    private PoiMarkerModelFactory createSearchResultModelFactory() {
+        return new PoiMarkerModelFactory(getString(R.string.distance_along_route),
+                getString(R.string.category_distance_along_route), getString(R.string.cluster_title));
+    }
+
+    /**
+     * Marker factory for search results. It runs off the main thread, so the balloon keys
+     * are resolved up front; the texts come formatted in the models. Results are clustered
+     * by {@link PoiMarkerLayer}, so markers are not clustered again by the map.
+     */
+    private PoiMarkerLayer.MarkerFactory createSearchResultMarkerFactory() {
+        final String poiNameKey = getString(R.string.poi_name_key);
+        final String addressKey = getString(R.string.address_key);
+        final String distanceAlongRouteKey = getString(R.string.distance_along_route_key);
+        final String clusterSizeKey = getString(R.string.cluster_size_key);
+        return model -> {
+            BaseMarkerBalloon markerBalloonData = new BaseMarkerBalloon();
+            markerBalloonData.addProperty(poiNameKey, model.getTitle());
+            if (model.isCluster()) {
+                markerBalloonData.addProperty(clusterSizeKey, String.valueOf(model.getClusterSize()));
+            } else {
+                markerBalloonData.addProperty(addressKey, model.getAddress());
+                markerBalloonData.addProperty(distanceAlongRouteKey, model.getDetail());
+            }
+
+            return new MarkerBuilder(new LatLng(model.getLatitude(), model.getLongitude()))
+                    .markerBalloon(markerBalloonData)
+                    .shouldCluster(false);
+        };
+    }
+
+    /**
+     * Balloon adapter for search results. The balloon keys are resolved once, and the views
+     * of a balloon are looked up once and kept in a {@link BalloonViewHolder} tag.
+     */
     private SingleLayoutBalloonViewAdapter createCustomViewAdapter() {
+        final String poiNameKey = getString(R.string.poi_name_key);
+        final String addressKey = getString(R.string.address_key);
+        final String distanceAlongRouteKey = getString(R.string.distance_along_route_key);
+        final String clusterSizeKey = getString(R.string.cluster_size_key);
         return new SingleLayoutBalloonViewAdapter(R.layout.marker_custom_balloon) {
             @Override
             public void onBindView(View view, final Marker marker, BaseMarkerBalloon baseMarkerBalloon) {
-                Button btnAddWayPoint = view.findViewById(R.id.btn_balloon_waypoint);
-                TextView textViewPoiName = view.findViewById(R.id.textview_balloon_poiname);
-                TextView textViewPoiAddress = view.findViewById(R.id.textview_balloon_poiaddress);
-                textViewPoiName.setText(baseMarkerBalloon.getStringProperty(getApplicationContext().getString(R.string.poi_name_key)));
-                textViewPoiAddress.setText(baseMarkerBalloon.getStringProperty(getApplicationContext().getString(R.string.address_key)));
-                btnAddWayPoint.setOnClickListener(new View.OnClickListener() {
-                    @Override
-                    public void onClick(View v) {
-                        setWayPoint(marker);
-                    }
-
-                    private void setWayPoint(Marker marker) {
-                        wayPointPosition = marker.getPosition();
-                        tomtomMap.clearRoute();
-                        drawRouteWithWayPoints(departurePosition, destinationPosition, new LatLng[]{wayPointPosition});
-                        marker.deselect();
-                    }
-                });
+                BalloonViewHolder holder = (BalloonViewHolder) view.getTag();
+                if (holder == null) {
+                    holder = new BalloonViewHolder(view);
+                    view.setTag(holder);
+                }
+                holder.marker = marker;
+                holder.textViewPoiName.setText(baseMarkerBalloon.getStringProperty(poiNameKey));
+                holder.textViewPoiAddress.setText(baseMarkerBalloon.getStringProperty(addressKey));
+                holder.textViewPoiDistance.setText(baseMarkerBalloon.getStringProperty(distanceAlongRouteKey));
+                boolean isCluster = baseMarkerBalloon.getStringProperty(clusterSizeKey) != null;
+                holder.btnAddWayPoint.setVisibility(isCluster ? View.GONE : View.VISIBLE);
             }
         };
     }
@@ -395,10 +523,11 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
     }
 
     private void clearMap() {
+        viewModel.clear();
+        dismissDialogInProgress();
         tomtomMap.clear();
-        departurePosition = null;
-        destinationPosition = null;
-        route = null;
+        searchResultMarkers.reset();
+        routeLayer.reset();
         disableSearchButtons();
         editTextPois.getText().clear();
     }
@@ -408,62 +537,141 @@ public class MainActivity extends AppCompatActivity implements OnMapReadyCallbac
         Toast.makeText(MainActivity.this, getString(R.string.api_response_error, e.getLocalizedMessage()), Toast.LENGTH_LONG).show();
     }
 
-    private RouteCalculationDescriptor createRouteCalculationDescriptor(RouteDescriptor routeDescriptor, LatLng[] wayPoints) {
-        return (wayPoints != null) ?
-                new RouteCalculationDescriptor.Builder()
-                        .routeDescription(routeDescriptor)
-                        .waypoints(asList(wayPoints)).build() :
-                new RouteCalculationDescriptor.Builder()
-                        .routeDescription(routeDescriptor).build();
-    }
-
     private void drawRoute(LatLng start, LatLng stop) {
-        wayPointPosition = null;
+        viewModel.setWayPointPosition(null);
         drawRouteWithWayPoints(start, stop, null);
     }
 
-    private RouteSpecification createRouteSpecification(LatLng start, LatLng stop, LatLng[] wayPoints) {
-        RouteDescriptor routeDescriptor = new RouteDescriptor.Builder()
-                .routeType(RouteType.FASTEST)
-                .build();
-        RouteCalculationDescriptor routeCalculationDescriptor = createRouteCalculationDescriptor(routeDescriptor, wayPoints);
-        return new RouteSpecification.Builder(start, stop)
-                .routeCalculationDescriptor(routeCalculationDescriptor)
-                .build();
+    /**
+     * Shows the route through the given waypoints, planning it only when it is neither
+     * cached in memory nor on disk.
+     */
+    private void drawRouteWithWayPoints(final LatLng start, final LatLng stop, final LatLng[] wayPoints) {
+        RouteGeometry cachedRoute = viewModel.getCachedRoute(start, stop, wayPoints);
+        if (cachedRoute != null) {
+            viewModel.cancelRoutePlanning();
+            displayRoute(cachedRoute);
+            return;
+        }
+        showDialogInProgress();
+        viewModel.planRoute(start, stop, wayPoints, createRoutePlanningObserver());
     }
 
-    private void drawRouteWithWayPoints(LatLng start, LatLng stop, LatLng[] wayPoints) {
-        RouteSpecification routeSpecification = createRouteSpecification(start, stop, wayPoints);
-        showDialogInProgress();
-        routingApi.planRoute(routeSpecification, new RouteCallback() {
+    private DisposableSingleObserver<RouteGeometry> createRoutePlanningObserver() {
+        return new DisposableSingleObserver<RouteGeometry>() {
             @Override
-            public void onSuccess(@NotNull RoutePlan routePlan) {
+            public void onSuccess(RouteGeometry plannedRoute) {
                 dismissDialogInProgress();
-                displayRoutes(routePlan.getRoutes());
-                tomtomMap.displayRoutesOverview();
+                displayRoute(plannedRoute);
             }
 
             @Override
-            public void onError(@NotNull RoutingException e) {
+            public void onError(Throwable e) {
                 handleApiError(e);
                 clearMap();
             }
+        };
+    }
 
-            private void displayRoutes(List<FullRoute> routes) {
-                for (FullRoute fullRoute : routes) {
-                    route = tomtomMap.addRoute(new RouteBuilder(
-                            fullRoute.getCoordinates()).startIcon(departureIcon).endIcon(destinationIcon));
-                }
+    /**
+     * Replaces the displayed route. Search result markers stay on the map, and results
+     * cached for the route are reused when it is shown again.
+     */
+    private void displayRoute(RouteGeometry plannedRoute) {
+        viewModel.setRouteGeometry(plannedRoute);
+        showRoute(plannedRoute);
+        prefetchShortcutCategories();
+    }
+
+    private void showRoute(RouteGeometry routeGeometry) {
+        routeLayer.show(routeGeometry, tomtomMap::displayRoutesOverview);
+    }
+
+    private void toggleMetricsOverlay() {
+        metricsOverlayHandler.removeCallbacks(metricsOverlayRefresh);
+        if (textViewMetrics.getVisibility() == View.VISIBLE) {
+            textViewMetrics.setVisibility(View.GONE);
+        } else {
+            textViewMetrics.setVisibility(View.VISIBLE);
+            metricsOverlayRefresh.run();
+        }
+    }
+
+    /**
+     * Writes a JSON snapshot of the service metrics to the app's external files directory,
+     * from where it can be pulled to compare builds.
+     */
+    private void dumpMetrics() {
+        final String json = viewModel.getServiceMetrics().toJson(BuildConfig.VERSION_NAME + "-" + BuildConfig.BUILD_TYPE);
+        File directory = getExternalFilesDir(null);
+        final File metricsFile = new File(directory != null ? directory : getFilesDir(), METRICS_FILE_NAME);
+        Log.i(TAG, json);
+        Completable.fromAction(() -> {
+            try (OutputStream outputStream = new FileOutputStream(metricsFile)) {
+                outputStream.write(json.getBytes("UTF-8"));
             }
-        });
+        })
+                .subscribeOn(viewModel.getIoExecutor().getScheduler(Priority.SPECULATIVE))
+                .subscribe(() -> Log.d(TAG, "Metrics written to " + metricsFile),
+                        error -> Log.w(TAG, "Could not write metrics", error));
+    }
+
+    private void prefetchShortcutCategories() {
+        if (viewModel.getRouteGeometry() == null) {
+            return;
+        }
+        List<String> shortcutQueries = asList(
+                btnGasStation.getContentDescription().toString(),
+                btnRestaurant.getContentDescription().toString(),
+                btnAtm.getContentDescription().toString());
+        viewModel.clipRouteAhead(userPosition(),
+                routeToSearch -> viewModel.prefetchCategories(routeToSearch, shortcutQueries));
+    }
+
+    /**
+     * @return the current location, or {@code null} while there is no location fix
+     */
+    @Nullable
+    private LatLng userPosition() {
+        Location location = tomtomMap.getUserLocation();
+        return location != null ? new LatLng(location.getLatitude(), location.getLongitude()) : null;
     }
 
     private boolean isDestinationPositionSet() {
-        return destinationPosition != null;
+        return viewModel.getDestinationPosition() != null;
     }
 
     private boolean isDeparturePositionSet() {
-        return departurePosition != null;
+        return viewModel.getDeparturePosition() != null;
+    }
+
+    private final class BalloonViewHolder implements View.OnClickListener {
+
+        private final Button btnAddWayPoint;
+        private final TextView textViewPoiName;
+        private final TextView textViewPoiAddress;
+        private final TextView textViewPoiDistance;
+        private Marker marker;
+
+        private BalloonViewHolder(View view) {
+            btnAddWayPoint = view.findViewById(R.id.btn_balloon_waypoint);
+            textViewPoiName = view.findViewById(R.id.textview_balloon_poiname);
+            textViewPoiAddress = view.findViewById(R.id.textview_balloon_poiaddress);
+            textViewPoiDistance = view.findViewById(R.id.textview_balloon_poidistance);
+            btnAddWayPoint.setOnClickListener(this);
+        }
+
+        @Override
+        public void onClick(View v) {
+            setWayPoint(marker);
+        }
+
+        private void setWayPoint(Marker marker) {
+            viewModel.setWayPointPosition(marker.getPosition());
+            drawRouteWithWayPoints(viewModel.getDeparturePosition(), viewModel.getDestinationPosition(),
+                    new LatLng[]{marker.getPosition()});
+            marker.deselect();
+        }
     }
 
     private abstract class BaseTextWatcher implements TextWatcher {
@@ -0,0 +1,516 @@
+package com.tomtom.online.sdk.searchalongaroute;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.google.common.base.Optional;
+import com.tomtom.online.sdk.common.location.LatLng;
+import com.tomtom.online.sdk.routing.OnlineRoutingApi;
+import com.tomtom.online.sdk.routing.route.description.RouteType;
+import com.tomtom.online.sdk.search.OnlineSearchApi;
+import com.tomtom.online.sdk.search.SearchApi;
+import com.tomtom.online.sdk.searchalongaroute.cache.AlongRouteSearchCache;
+import com.tomtom.online.sdk.searchalongaroute.cache.DiskCache;
+import com.tomtom.online.sdk.searchalongaroute.cache.PersistentRouteCache;
+import com.tomtom.online.sdk.searchalongaroute.cache.ReverseGeocodeCache;
+import com.tomtom.online.sdk.searchalongaroute.cache.RoutePlanCache;
+import com.tomtom.online.sdk.searchalongaroute.exec.Priority;
+import com.tomtom.online.sdk.searchalongaroute.exec.PriorityExecutor;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteAheadClipper;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegment;
+import com.tomtom.online.sdk.searchalongaroute.metrics.ServiceMetrics;
+import com.tomtom.online.sdk.searchalongaroute.poi.LocalAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.poi.PoiIndex;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.replay.RecordingRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.replay.ReplayRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.replay.ServiceArchive;
+import com.tomtom.online.sdk.searchalongaroute.request.RequestPipeline;
+import com.tomtom.online.sdk.searchalongaroute.route.OnlineRoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.CategoryPrefetcher;
+import com.tomtom.online.sdk.searchalongaroute.search.OnlineAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.OnlineReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.search.QueryAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.ResiliencePolicy;
+import com.tomtom.online.sdk.searchalongaroute.search.ResilientAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+import com.tomtom.online.sdk.searchalongaroute.search.SegmentedAlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.SimplifyingAlongRouteSearch;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.DisposableSingleObserver;
+
+/**
+ * State of the search along a route screen that survives configuration changes: the route,
+ * the displayed search results, the caches, and the services with their requests in flight.
+ * <p>
+ * Requests run in the pipelines of this view model, so they are not cancelled when the
+ * activity is recreated. The activity detaches its observers when it is destroyed, and the
+ * new activity attaches to the requests still in flight and redraws the map from this state,
+ * without any network round trip. All methods must be called on the main thread.
+ */
+public class SearchAlongRouteViewModel extends AndroidViewModel {
+
+    private static final String TAG = "SearchAlongARoute";
+
+    static final int MAX_DETOUR_TIME = 1000;
+    static final int QUERY_LIMIT = 10;
+
+    private static final int MAX_CONCURRENT_SEGMENTS = 4;
+    private static final String IO_EXECUTOR = "io";
+    private static final String COMPUTATION_EXECUTOR = "computation";
+    /**
+     * Enough for the segments of a search and two more requests at the same time.
+     */
+    private static final int IO_THREADS = MAX_CONCURRENT_SEGMENTS + 2;
+    private static final int MAX_SPECULATIVE_IO_THREADS = 2;
+    /**
+     * Leaves a core to the main thread.
+     */
+    private static final int COMPUTATION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int MAX_SPECULATIVE_COMPUTATION_THREADS = 1;
+    private static final RouteType ROUTE_TYPE = RouteType.FASTEST;
+    private static final String POI_INDEX_FILE_NAME = "pois.bin";
+    private static final double SEARCH_AHEAD_HORIZON_METERS = RouteAheadClipper.NO_HORIZON;
+    private static final String DISK_CACHE_DIRECTORY = "routes";
+    private static final long DISK_CACHE_MAX_BYTES = 8 * 1024 * 1024;
+    private static final String SERVICE_ARCHIVE_FILE_NAME = "services.archive";
+    private static final String SERVICE_ARCHIVE_RECORD = "record";
+    private static final String SERVICE_ARCHIVE_REPLAY = "replay";
+
+    /**
+     * Receives the results of a search that are shown before the search completes.
+     */
+    interface PartialResultsListener {
+        void onPartialResults(List<RoutePoi> results, double startOffsetMeters);
+    }
+
+    private final ServiceMetrics serviceMetrics = new ServiceMetrics();
+    private final PriorityExecutor ioExecutor =
+            new PriorityExecutor(IO_EXECUTOR, IO_THREADS, MAX_SPECULATIVE_IO_THREADS, serviceMetrics);
+    private final PriorityExecutor computationExecutor = new PriorityExecutor(COMPUTATION_EXECUTOR,
+            COMPUTATION_THREADS, MAX_SPECULATIVE_COMPUTATION_THREADS, serviceMetrics);
+    private final Scheduler ioScheduler = ioExecutor.getScheduler(Priority.USER);
+    private final Scheduler computationScheduler = computationExecutor.getScheduler(Priority.USER);
+    private final ReverseGeocodeCache reverseGeocodeCache = new ReverseGeocodeCache();
+    private final AlongRouteSearchCache alongRouteSearchCache = new AlongRouteSearchCache();
+    private final RoutePlanCache routePlanCache = new RoutePlanCache();
+    private final RequestPipeline<Long, Optional<GeoPosition>> reverseGeocodingRequests =
+            new RequestPipeline<>("reverseGeocoding");
+    private final RequestPipeline<RoutePlanCache.Key, RouteGeometry> routePlanRequests =
+            new RequestPipeline<>("planRoute");
+    private final RequestPipeline<AlongRouteSearchCache.Key, List<RoutePoi>> alongRouteSearchRequests =
+            new RequestPipeline<>("alongRouteSearch");
+    private final SearchApi searchApi;
+    private final ServiceArchive serviceArchive;
+    private final ReverseGeocoder reverseGeocoder;
+    private final RoutePlanner routePlanner;
+    private final ResilientAlongRouteSearch resilientSearch;
+    private final ResilientAlongRouteSearch prefetchResilientSearch;
+    private final SegmentedAlongRouteSearch segmentedSearch;
+    private final CategoryPrefetcher categoryPrefetcher;
+    private final PersistentRouteCache persistentRouteCache;
+    private final Disposable poiIndexLoading;
+    private final CompositeDisposable routeAheadClips = new CompositeDisposable();
+    private AlongRouteSearch alongRouteSearch;
+    private QueryAlongRouteSearch querySearch;
+    private PartialResultsListener partialResultsListener;
+
+    private LatLng departurePosition;
+    private LatLng destinationPosition;
+    private LatLng wayPointPosition;
+    private RouteGeometry routeGeometry;
+    private RouteAheadClipper routeAhead;
+    private List<RoutePoi> displayedResults;
+    private double displayedResultsOffsetMeters;
+    private String searchText;
+    private double searchStartOffsetMeters;
+
+    public SearchAlongRouteViewModel(@NonNull Application application) {
+        super(application);
+        searchApi = OnlineSearchApi.create(application, BuildConfig.SEARCH_API_KEY);
+        ReverseGeocoder serviceReverseGeocoder =
+                new OnlineReverseGeocoder(searchApi, serviceMetrics.call(ServiceMetrics.REVERSE_GEOCODING));
+        RoutePlanner serviceRoutePlanner =
+                new OnlineRoutePlanner(OnlineRoutingApi.create(application, BuildConfig.ROUTING_API_KEY),
+                        ROUTE_TYPE, serviceMetrics.call(ServiceMetrics.PLAN_ROUTE));
+        AlongRouteSearch serviceSearch =
+                new OnlineAlongRouteSearch(searchApi, serviceMetrics.call(ServiceMetrics.ALONG_ROUTE_SEARCH));
+        // Builds can record the service responses, or replay them without the network.
+        switch (BuildConfig.SERVICE_ARCHIVE) {
+            case SERVICE_ARCHIVE_RECORD:
+                serviceArchive = new ServiceArchive(new File(application.getFilesDir(), SERVICE_ARCHIVE_FILE_NAME));
+                serviceReverseGeocoder = new RecordingReverseGeocoder(serviceReverseGeocoder, serviceArchive);
+                serviceRoutePlanner = new RecordingRoutePlanner(serviceRoutePlanner, serviceArchive);
+                serviceSearch = new RecordingAlongRouteSearch(serviceSearch, serviceArchive);
+                break;
+            case SERVICE_ARCHIVE_REPLAY:
+                serviceArchive = new ServiceArchive(new File(application.getFilesDir(), SERVICE_ARCHIVE_FILE_NAME));
+                serviceReverseGeocoder = new ReplayReverseGeocoder(serviceArchive, ioScheduler);
+                serviceRoutePlanner = new ReplayRoutePlanner(serviceArchive, ioScheduler);
+                serviceSearch = new ReplayAlongRouteSearch(serviceArchive, ioScheduler);
+                break;
+            default:
+                serviceArchive = null;
+                break;
+        }
+        reverseGeocoder = serviceReverseGeocoder;
+        routePlanner = serviceRoutePlanner;
+        ResiliencePolicy resiliencePolicy = new ResiliencePolicy.Builder().build();
+        resilientSearch = new ResilientAlongRouteSearch(serviceSearch, resiliencePolicy, ioScheduler);
+        segmentedSearch = new SegmentedAlongRouteSearch(new SimplifyingAlongRouteSearch(resilientSearch),
+                ioScheduler, MAX_CONCURRENT_SEGMENTS);
+        useAlongRouteSearch(segmentedSearch);
+        // Prefetches go through the same metered service as user searches, one segment at a
+        // time. Their attempts, hedges and retries run at speculative priority, and their
+        // latencies do not move the hedge delay of user searches.
+        Scheduler speculativeIoScheduler = ioExecutor.getScheduler(Priority.SPECULATIVE);
+        prefetchResilientSearch = new ResilientAlongRouteSearch(serviceSearch, resiliencePolicy,
+                speculativeIoScheduler);
+        categoryPrefetcher = new CategoryPrefetcher(new SegmentedAlongRouteSearch(
+                new SimplifyingAlongRouteSearch(prefetchResilientSearch), speculativeIoScheduler, 1),
+                alongRouteSearchCache, computationExecutor.getScheduler(Priority.SPECULATIVE));
+        persistentRouteCache = new PersistentRouteCache(
+                new DiskCache(new File(application.getCacheDir(), DISK_CACHE_DIRECTORY), DISK_CACHE_MAX_BYTES),
+                ioScheduler);
+        // The local POI index would answer the searches to record or replay.
+        poiIndexLoading = serviceArchive == null
+                ? loadLocalPoiIndex(new File(application.getFilesDir(), POI_INDEX_FILE_NAME))
+                : Disposables.disposed();
+    }
+
+    @Override
+    protected void onCleared() {
+        poiIndexLoading.dispose();
+        routeAheadClips.dispose();
+        reverseGeocodingRequests.dispose();
+        routePlanRequests.dispose();
+        alongRouteSearchRequests.dispose();
+        Log.d(TAG, reverseGeocodingRequests + ", " + routePlanRequests + ", " + alongRouteSearchRequests
+                + ", " + resilientSearch + ", prefetch " + prefetchResilientSearch + ", " + persistentRouteCache
+                + (serviceArchive != null ? ", " + serviceArchive : ""));
+        categoryPrefetcher.cancel();
+        ioExecutor.shutdown();
+        computationExecutor.shutdown();
+    }
+
+    public ServiceMetrics getServiceMetrics() {
+        return serviceMetrics;
+    }
+
+    /**
+     * @return the executor of the service requests and the disk access
+     */
+    public PriorityExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * @return the executor of the route geometry and result processing
+     */
+    public PriorityExecutor getComputationExecutor() {
+        return computationExecutor;
+    }
+
+    public LatLng getDeparturePosition() {
+        return departurePosition;
+    }
+
+    public void setDeparturePosition(LatLng departurePosition) {
+        this.departurePosition = departurePosition;
+    }
+
+    public LatLng getDestinationPosition() {
+        return destinationPosition;
+    }
+
+    public void setDestinationPosition(LatLng destinationPosition) {
+        this.destinationPosition = destinationPosition;
+    }
+
+    public LatLng getWayPointPosition() {
+        return wayPointPosition;
+    }
+
+    public void setWayPointPosition(LatLng wayPointPosition) {
+        this.wayPointPosition = wayPointPosition;
+    }
+
+    /**
+     * @return the displayed route, or {@code null}
+     */
+    public RouteGeometry getRouteGeometry() {
+        return routeGeometry;
+    }
+
+    public void setRouteGeometry(RouteGeometry routeGeometry) {
+        this.routeGeometry = routeGeometry;
+        this.routeAhead = new RouteAheadClipper(routeGeometry, SEARCH_AHEAD_HORIZON_METERS);
+        routeAheadClips.clear();
+        routeAheadClips.add(Completable.fromAction(routeAhead::prepare)
+                .subscribeOn(computationScheduler)
+                .subscribe());
+    }
+
+    /**
+     * Clips the route to the part ahead of {@code position} on the computation executor, and
+     * passes it to {@code onRouteAhead} on the main thread; the whole route while there is no
+     * position. Nothing is passed when the route changes before the clip is done.
+     */
+    public void clipRouteAhead(@Nullable final LatLng position, final Consumer<RouteSegment> onRouteAhead) {
+        final RouteAheadClipper clipper = routeAhead;
+        routeAheadClips.add(Single.fromCallable(() -> position != null
+                ? clipper.clip(position.getLatitude(), position.getLongitude())
+                : clipper.full())
+                .subscribeOn(computationScheduler)
+                .observeOn(AndroidSchedulers.mainThread())
+                .filter(routeSegment -> clipper == routeAhead)
+                .subscribe(onRouteAhead, error -> Log.w(TAG, "Could not clip the route", error)));
+    }
+
+    /**
+     * @return the search results on the map, or {@code null}
+     */
+    public List<RoutePoi> getDisplayedResults() {
+        return displayedResults;
+    }
+
+    public double getDisplayedResultsOffsetMeters() {
+        return displayedResultsOffsetMeters;
+    }
+
+    public void setDisplayedResults(List<RoutePoi> results, double startOffsetMeters) {
+        this.displayedResults = results;
+        this.displayedResultsOffsetMeters = startOffsetMeters;
+    }
+
+    /**
+     * @return the text of the latest search
+     */
+    public String getSearchText() {
+        return searchText;
+    }
+
+    /**
+     * @return where the route searched by the latest search starts
+     */
+    public double getSearchStartOffsetMeters() {
+        return searchStartOffsetMeters;
+    }
+
+    public void setPartialResultsListener(PartialResultsListener partialResultsListener) {
+        this.partialResultsListener = partialResultsListener;
+    }
+
+    /**
+     * @return the address near the position, absent when there is none, or {@code null} when
+     * the position is not cached
+     */
+    public Optional<GeoPosition> getCachedReverseGeocoding(LatLng position) {
+        Optional<GeoPosition> address = reverseGeocodeCache.get(position.getLatitude(), position.getLongitude());
+        serviceMetrics.cache(ServiceMetrics.REVERSE_GEOCODING_CACHE).recordLookup(address != null);
+        return address;
+    }
+
+    /**
+     * Finds the address nearest to the position; the observer receives an absent address
+     * when there is none.
+     */
+    public void reverseGeocode(final LatLng position, DisposableSingleObserver<Optional<GeoPosition>> observer) {
+        reverseGeocodingRequests.submit(reverseGeocodeCache.cellOf(position.getLatitude(), position.getLongitude()),
+                reverseGeocoder.reverseGeocode(RouteCoordinates.toGeoPosition(position))
+                        .map(Optional::of)
+                        .toSingle(Optional.<GeoPosition>absent())
+                        .subscribeOn(ioScheduler)
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .doOnSuccess(address -> reverseGeocodeCache.put(
+                                position.getLatitude(), position.getLongitude(), address)),
+                observer);
+    }
+
+    public boolean attachReverseGeocoding(DisposableSingleObserver<Optional<GeoPosition>> observer) {
+        return reverseGeocodingRequests.attach(observer);
+    }
+
+    /**
+     * @return the route through the given waypoints if it is cached in memory, or {@code null}
+     */
+    public RouteGeometry getCachedRoute(LatLng start, LatLng stop, LatLng[] wayPoints) {
+        RouteGeometry route = routePlanCache.get(new RoutePlanCache.Key(start, stop, wayPoints, ROUTE_TYPE));
+        serviceMetrics.cache(ServiceMetrics.ROUTE_PLAN_CACHE).recordLookup(route != null);
+        return route;
+    }
+
+    /**
+     * Reads the route through the given waypoints from disk, or plans it when it is not there.
+     */
+    public void planRoute(LatLng start, LatLng stop, LatLng[] wayPoints, DisposableSingleObserver<RouteGeometry> observer) {
+        final RoutePlanCache.Key routePlanKey = new RoutePlanCache.Key(start, stop, wayPoints, ROUTE_TYPE);
+        routePlanRequests.submit(routePlanKey,
+                persistentRouteCache.getRoute(routePlanKey)
+                        .switchIfEmpty(routePlanner.planRoute(RouteCoordinates.toGeoPosition(start),
+                                RouteCoordinates.toGeoPosition(stop), toGeoPositions(wayPoints))
+                                .doOnSuccess(plannedRoute -> persistentRouteCache.putRoute(routePlanKey, plannedRoute)))
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .doOnSuccess(route -> routePlanCache.put(routePlanKey, route)),
+                observer);
+    }
+
+    public boolean attachRoutePlanning(DisposableSingleObserver<RouteGeometry> observer) {
+        return routePlanRequests.attach(observer);
+    }
+
+    public void cancelRoutePlanning() {
+        routePlanRequests.cancel();
+    }
+
+    /**
+     * @return cached results of searching {@code routeToSearch}, or {@code null}
+     */
+    public List<RoutePoi> getCachedSearchResults(RouteSegment routeToSearch, String textToSearch) {
+        List<RoutePoi> results = alongRouteSearchCache.get(searchKey(routeToSearch, textToSearch));
+        serviceMetrics.cache(ServiceMetrics.ALONG_ROUTE_SEARCH_CACHE).recordLookup(results != null);
+        return results;
+    }
+
+    /**
+     * Searches along {@code routeToSearch}, reading the results from disk when they are there.
+     * Results of a progressive search are passed to the {@link PartialResultsListener} while
+     * the detour is still widened.
+     */
+    public void searchAlongRoute(final RouteSegment routeToSearch, final String textToSearch,
+                                 DisposableSingleObserver<List<RoutePoi>> observer) {
+        final AlongRouteSearchCache.Key cacheKey = searchKey(routeToSearch, textToSearch);
+        final RouteGeometry routeGeometry = routeToSearch.getGeometry();
+        final double startOffsetMeters = routeToSearch.getStartOffsetMeters();
+        searchText = textToSearch;
+        searchStartOffsetMeters = startOffsetMeters;
+        categoryPrefetcher.cancel();
+        alongRouteSearchRequests.submit(cacheKey,
+                persistentRouteCache.getSearchResults(cacheKey)
+                        // Every detour step of the search simplifies the route for its own budget.
+                        .switchIfEmpty(Flowable.defer(() -> querySearch.search(routeGeometry,
+                                textToSearch, MAX_DETOUR_TIME, QUERY_LIMIT))
+                                .subscribeOn(computationScheduler)
+                                .observeOn(AndroidSchedulers.mainThread())
+                                .doOnNext(results -> {
+                                    // Show the results of the tighter detours while wider ones are still searched.
+                                    if (!results.isEmpty() && partialResultsListener != null) {
+                                        partialResultsListener.onPartialResults(results, startOffsetMeters);
+                                    }
+                                })
+                                .lastOrError()
+                                .doOnSuccess(results -> persistentRouteCache.putSearchResults(cacheKey, results)))
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .doOnSuccess(results -> alongRouteSearchCache.put(cacheKey, results)),
+                observer);
+    }
+
+    public boolean attachSearch(DisposableSingleObserver<List<RoutePoi>> observer) {
+        return alongRouteSearchRequests.attach(observer);
+    }
+
+    public void cancelSearch() {
+        alongRouteSearchRequests.cancel();
+    }
+
+    public void prefetchCategories(RouteSegment routeToSearch, List<String> queries) {
+        if (alongRouteSearch != segmentedSearch || serviceArchive != null) {
+            // The local POI index answers without network, there is nothing to prefetch.
+            // Prefetches bypass the service archive, so they are neither recorded nor replayed.
+            return;
+        }
+        categoryPrefetcher.prefetch(routeToSearch.getGeometry(), queries, MAX_DETOUR_TIME, QUERY_LIMIT);
+    }
+
+    /**
+     * Stops notifying the observers of the requests in flight, which keep running.
+     */
+    public void detach() {
+        partialResultsListener = null;
+        routeAheadClips.clear();
+        reverseGeocodingRequests.detach();
+        routePlanRequests.detach();
+        alongRouteSearchRequests.detach();
+    }
+
+    /**
+     * Cancels all requests and forgets the route and its search results.
+     */
+    public void clear() {
+        categoryPrefetcher.cancel();
+        reverseGeocodingRequests.cancel();
+        routePlanRequests.cancel();
+        alongRouteSearchRequests.cancel();
+        alongRouteSearchCache.invalidate();
+        routeAheadClips.clear();
+        departurePosition = null;
+        destinationPosition = null;
+        wayPointPosition = null;
+        routeGeometry = null;
+        routeAhead = null;
+        displayedResults = null;
+    }
+
+    private AlongRouteSearchCache.Key searchKey(RouteSegment routeToSearch, String textToSearch) {
+        return new AlongRouteSearchCache.Key(
+                routeToSearch.getGeometry().getFingerprint(), textToSearch, MAX_DETOUR_TIME, QUERY_LIMIT);
+    }
+
+    private static GeoPosition[] toGeoPositions(LatLng[] positions) {
+        if (positions == null) {
+            return null;
+        }
+        GeoPosition[] geoPositions = new GeoPosition[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            geoPositions[i] = RouteCoordinates.toGeoPosition(positions[i]);
+        }
+        return geoPositions;
+    }
+
+    private Disposable loadLocalPoiIndex(final File poiIndexFile) {
+        return Single.fromCallable(() -> {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(poiIndexFile))) {
+                return PoiIndex.read(inputStream);
+            }
+        })
+                .subscribeOn(ioScheduler)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(poiIndex -> {
+                    Log.d(TAG, "Using local POI index with " + poiIndex.size() + " POIs");
+                    useAlongRouteSearch(new LocalAlongRouteSearch(poiIndex, computationScheduler));
+                }, error -> Log.d(TAG, "No local POI index, searching online: " + error.getMessage()));
+    }
+
+    private void useAlongRouteSearch(AlongRouteSearch search) {
+        alongRouteSearch = search;
+        querySearch = new QueryAlongRouteSearch(alongRouteSearch, computationScheduler);
+    }
+}
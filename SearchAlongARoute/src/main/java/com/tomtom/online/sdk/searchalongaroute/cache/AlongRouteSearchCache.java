@@ -0,0 +1,140 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.List;
+
+/**
+ * In-memory cache of along route search results with LRU eviction and a time to live.
+ * Entries are keyed by the route geometry fingerprint and the query parameters, so a
+ * result can never be served for a different route.
+ * <p>
+ * Planning a new route does not invalidate the cache: the entries of the previous route
+ * are no longer looked up and leave by LRU eviction or their time to live, and are served
+ * again if the same route is planned once more.
+ */
+public class AlongRouteSearchCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 32;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 10 * 60 * 1000;
+
+    private final LruCache<Key, Entry> entries;
+    private final long timeToLiveMillis;
+    private int hitCount;
+    private int missCount;
+
+    public AlongRouteSearchCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public AlongRouteSearchCache(int maxEntries, long timeToLiveMillis) {
+        this.entries = new LruCache<>(maxEntries);
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public synchronized List<RoutePoi> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= SystemClock.elapsedRealtime()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.results;
+    }
+
+    /**
+     * Tells whether a live entry exists, without counting a hit or a miss.
+     */
+    public synchronized boolean contains(Key key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.expiresAt > SystemClock.elapsedRealtime();
+    }
+
+    public synchronized void put(Key key, List<RoutePoi> results) {
+        entries.put(key, new Entry(results, SystemClock.elapsedRealtime() + timeToLiveMillis));
+    }
+
+    /**
+     * Drops all entries, e.g. when the map is cleared.
+     */
+    public synchronized void invalidate() {
+        entries.evictAll();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AlongRouteSearchCache{hits=" + hitCount + ", misses=" + missCount
+                + ", size=" + entries.size() + "/" + entries.maxSize() + "}";
+    }
+
+    public static final class Key {
+
+        private final long routeFingerprint;
+        private final String query;
+        private final int maxDetourTime;
+        private final int limit;
+
+        public Key(long routeFingerprint, String query, int maxDetourTime, int limit) {
+            this.routeFingerprint = routeFingerprint;
+            this.query = query;
+            this.maxDetourTime = maxDetourTime;
+            this.limit = limit;
+        }
+
+        /**
+         * @return stable text form of the key, used to persist the results
+         */
+        public String toPersistentKey() {
+            return "search/" + Long.toHexString(routeFingerprint) + "/" + maxDetourTime + "/" + limit + "/" + query;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return routeFingerprint == other.routeFingerprint
+                    && maxDetourTime == other.maxDetourTime
+                    && limit == other.limit
+                    && query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (routeFingerprint ^ (routeFingerprint >>> 32));
+            result = 31 * result + query.hashCode();
+            result = 31 * result + maxDetourTime;
+            result = 31 * result + limit;
+            return result;
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<RoutePoi> results;
+        private final long expiresAt;
+
+        private Entry(List<RoutePoi> results, long expiresAt) {
+            this.results = results;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
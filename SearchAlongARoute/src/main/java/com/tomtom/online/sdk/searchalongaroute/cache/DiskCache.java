@@ -0,0 +1,207 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache of binary entries, one file per entry, bounded in total size with least
+ * recently used eviction. Every entry carries a version and an expiry time; entries of
+ * another version and expired entries are misses and are deleted when read.
+ * <p>
+ * An entry file starts with a {@code "SAR1"} magic number, the entry version, the expiry
+ * time in epoch milliseconds and the UTF-8 key, which is compared on read so that colliding
+ * file names are misses, followed by the payload. Files are read by memory-mapping them and
+ * written to a temporary file that is renamed into place, so a crash never leaves a partial
+ * entry. The recency order is kept in memory and restored from the file modification times.
+ * <p>
+ * All methods do disk I/O and must not be called on the main thread.
+ */
+public class DiskCache {
+
+    private static final int MAGIC = 0x53415231;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxBytes;
+    private final Map<String, Long> fileSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean loaded;
+    private long totalBytes;
+    private int hitCount;
+    private int missCount;
+
+    public DiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return read-only payload of the entry, or {@code null} when there is no live entry of
+     * {@code version} for the key
+     */
+    public synchronized ByteBuffer get(String key, int version) throws IOException {
+        load();
+        String fileName = fileNameOf(key);
+        // get rather than containsKey, so that a hit moves the entry to the recent end.
+        if (fileSizes.get(fileName) == null) {
+            missCount++;
+            return null;
+        }
+        File file = new File(directory, fileName);
+        ByteBuffer payload = read(file, key, version);
+        if (payload == null) {
+            missCount++;
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        hitCount++;
+        return payload;
+    }
+
+    public synchronized void put(String key, int version, byte[] payload, long timeToLiveMillis) throws IOException {
+        load();
+        byte[] keyBytes = key.getBytes(UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 4 + keyBytes.length);
+        header.putInt(MAGIC)
+                .putInt(version)
+                .putLong(System.currentTimeMillis() + timeToLiveMillis)
+                .putInt(keyBytes.length)
+                .put(keyBytes);
+        String fileName = fileNameOf(key);
+        File temp = new File(directory, fileName + TEMP_SUFFIX);
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            output.write(header.array());
+            output.write(payload);
+        }
+        File file = new File(directory, fileName);
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not write " + file);
+        }
+        forget(fileName);
+        long size = header.capacity() + payload.length;
+        fileSizes.put(fileName, size);
+        totalBytes += size;
+        evict();
+    }
+
+    public synchronized void clear() throws IOException {
+        load();
+        for (String fileName : fileSizes.keySet()) {
+            new File(directory, fileName).delete();
+        }
+        fileSizes.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DiskCache{hits=" + hitCount + ", misses=" + missCount + ", entries=" + fileSizes.size()
+                + ", bytes=" + totalBytes + "/" + maxBytes + "}";
+    }
+
+    private ByteBuffer read(File file, String key, int version) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            // The mapping stays valid after the channel is closed.
+            buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+        }
+        byte[] keyBytes = key.getBytes(UTF_8);
+        if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+            delete(file);
+            return null;
+        }
+        int entryVersion = buffer.getInt();
+        long expiresAt = buffer.getLong();
+        int keyLength = buffer.getInt();
+        if (entryVersion != version || expiresAt <= System.currentTimeMillis()) {
+            delete(file);
+            return null;
+        }
+        if (keyLength != keyBytes.length || buffer.remaining() < keyLength) {
+            return null;
+        }
+        byte[] storedKey = new byte[keyLength];
+        buffer.get(storedKey);
+        if (!Arrays.equals(storedKey, keyBytes)) {
+            return null;
+        }
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            files = new File[0];
+        }
+        Arrays.sort(files, (first, second) -> Long.compare(first.lastModified(), second.lastModified()));
+        for (File file : files) {
+            if (file.getName().endsWith(ENTRY_SUFFIX)) {
+                fileSizes.put(file.getName(), file.length());
+                totalBytes += file.length();
+            } else if (file.getName().endsWith(TEMP_SUFFIX)) {
+                file.delete();
+            }
+        }
+        loaded = true;
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = fileSizes.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            new File(directory, entry.getKey()).delete();
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void delete(File file) {
+        file.delete();
+        forget(file.getName());
+    }
+
+    private void forget(String fileName) {
+        Long size = fileSizes.remove(fileName);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * @return file name of the 64-bit FNV-1a hash of the key
+     */
+    private static String fileNameOf(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash) + ENTRY_SUFFIX;
+    }
+}
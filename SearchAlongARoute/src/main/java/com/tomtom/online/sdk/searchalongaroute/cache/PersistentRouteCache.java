@@ -0,0 +1,178 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import android.util.Log;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+
+/**
+ * Keeps planned routes and along route search results in a {@link DiskCache}, so they
+ * survive the process and a cold start on a known route is answered without the network.
+ * Reads and writes run on {@code scheduler}; failed reads and unreadable entries are misses.
+ * <p>
+ * Search results are keyed by the route geometry fingerprint, so nothing is invalidated
+ * when a new route is planned; entries of other routes expire or are evicted by the
+ * {@link DiskCache} size bound.
+ * <p>
+ * Routes are stored as a point count followed by E7 latitude and longitude pairs. Search
+ * results are stored as a count followed by, per POI, its E7 position, its distance along
+ * the route and its id, name, address and category as length-prefixed UTF-8, where a
+ * length of -1 stands for {@code null}. The entry versions change with these formats.
+ */
+public class PersistentRouteCache {
+
+    private static final String TAG = "PersistentRouteCache";
+
+    public static final long ROUTE_TIME_TO_LIVE_MILLIS = 60 * 60 * 1000;
+    public static final long SEARCH_RESULTS_TIME_TO_LIVE_MILLIS = 24 * 60 * 60 * 1000;
+
+    private static final int ROUTE_VERSION = 1;
+    private static final int SEARCH_RESULTS_VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final double E7 = 1e7;
+    private static final int MIN_POI_BYTES = 4 + 4 + 8 + 4 * 4;
+
+    private final DiskCache diskCache;
+    private final Scheduler scheduler;
+
+    public PersistentRouteCache(DiskCache diskCache, Scheduler scheduler) {
+        this.diskCache = diskCache;
+        this.scheduler = scheduler;
+    }
+
+    public Maybe<RouteGeometry> getRoute(RoutePlanCache.Key key) {
+        final String persistentKey = key.toPersistentKey();
+        return Maybe.fromCallable(() -> {
+            ByteBuffer payload = diskCache.get(persistentKey, ROUTE_VERSION);
+            return payload != null ? readRoute(payload) : null;
+        })
+                .subscribeOn(scheduler)
+                .onErrorComplete(error -> logReadError(persistentKey, error));
+    }
+
+    public void putRoute(RoutePlanCache.Key key, final RouteGeometry route) {
+        final String persistentKey = key.toPersistentKey();
+        write(persistentKey, ROUTE_VERSION, ROUTE_TIME_TO_LIVE_MILLIS, output -> {
+            output.writeInt(route.getPointCount());
+            for (int i = 0; i < route.getPointCount(); i++) {
+                output.writeInt(route.getLatitudeE7(i));
+                output.writeInt(route.getLongitudeE7(i));
+            }
+        });
+    }
+
+    public Maybe<List<RoutePoi>> getSearchResults(AlongRouteSearchCache.Key key) {
+        final String persistentKey = key.toPersistentKey();
+        return Maybe.fromCallable(() -> {
+            ByteBuffer payload = diskCache.get(persistentKey, SEARCH_RESULTS_VERSION);
+            return payload != null ? readSearchResults(payload) : null;
+        })
+                .subscribeOn(scheduler)
+                .onErrorComplete(error -> logReadError(persistentKey, error));
+    }
+
+    public void putSearchResults(AlongRouteSearchCache.Key key, final List<RoutePoi> results) {
+        final String persistentKey = key.toPersistentKey();
+        write(persistentKey, SEARCH_RESULTS_VERSION, SEARCH_RESULTS_TIME_TO_LIVE_MILLIS, output -> {
+            output.writeInt(results.size());
+            for (RoutePoi poi : results) {
+                output.writeInt(RouteGeometry.toE7(poi.getLatitude()));
+                output.writeInt(RouteGeometry.toE7(poi.getLongitude()));
+                output.writeDouble(poi.getDistanceAlongRouteMeters());
+                writeString(output, poi.getId());
+                writeString(output, poi.getName());
+                writeString(output, poi.getAddress());
+                writeString(output, poi.getCategory());
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(diskCache);
+    }
+
+    private interface PayloadWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    private void write(final String persistentKey, final int version, final long timeToLiveMillis,
+                       final PayloadWriter payloadWriter) {
+        Completable.fromAction(() -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                payloadWriter.write(output);
+            }
+            diskCache.put(persistentKey, version, bytes.toByteArray(), timeToLiveMillis);
+        })
+                .subscribeOn(scheduler)
+                .subscribe(() -> {
+                }, error -> Log.w(TAG, "Could not persist " + persistentKey, error));
+    }
+
+    private static RouteGeometry readRoute(ByteBuffer payload) throws IOException {
+        int pointCount = payload.getInt();
+        if (pointCount < 0 || pointCount > payload.remaining() / 8) {
+            throw new IOException("Corrupt route entry");
+        }
+        int[] coordinatesE7 = new int[pointCount * 2];
+        payload.asIntBuffer().get(coordinatesE7);
+        return RouteGeometry.fromE7(coordinatesE7);
+    }
+
+    private static List<RoutePoi> readSearchResults(ByteBuffer payload) throws IOException {
+        int count = payload.getInt();
+        if (count < 0 || count > payload.remaining() / MIN_POI_BYTES) {
+            throw new IOException("Corrupt search results entry");
+        }
+        List<RoutePoi> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double latitude = payload.getInt() / E7;
+            double longitude = payload.getInt() / E7;
+            double distanceAlongRouteMeters = payload.getDouble();
+            String id = readString(payload);
+            String name = readString(payload);
+            String address = readString(payload);
+            String category = readString(payload);
+            results.add(new RoutePoi(id, name, address, latitude, longitude, distanceAlongRouteMeters, category));
+        }
+        return results;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static boolean logReadError(String persistentKey, Throwable error) {
+        Log.w(TAG, "Could not read " + persistentKey, error);
+        return true;
+    }
+}
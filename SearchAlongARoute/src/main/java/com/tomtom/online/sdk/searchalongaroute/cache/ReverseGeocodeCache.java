@@ -0,0 +1,78 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import android.util.LruCache;
+
+import com.google.common.base.Optional;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+
+/**
+ * In-memory cache of reverse geocoded addresses, absent where no address was found.
+ * Positions are quantized to a grid of {@code precision} decimal degrees, so long-presses
+ * close to an already resolved point reuse its address. The least recently used cells are
+ * evicted once {@code maxEntries} is reached.
+ */
+public class ReverseGeocodeCache {
+
+    /**
+     * Four decimal places make cells of about 11 m, smaller than a finger on the map.
+     */
+    public static final int DEFAULT_PRECISION = 4;
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final int MAX_PRECISION = 6;
+
+    private final double scale;
+    private final LruCache<Long, Optional<GeoPosition>> addresses;
+
+    public ReverseGeocodeCache() {
+        this(DEFAULT_PRECISION, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ReverseGeocodeCache(int precision, int maxEntries) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION);
+        }
+        this.scale = Math.pow(10, precision);
+        this.addresses = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * @return the address near the position, absent when there is none, or {@code null} when
+     * the position is not cached
+     */
+    public Optional<GeoPosition> get(double latitude, double longitude) {
+        return addresses.get(cellOf(latitude, longitude));
+    }
+
+    public void put(double latitude, double longitude, Optional<GeoPosition> address) {
+        addresses.put(cellOf(latitude, longitude), address);
+    }
+
+    public int getHitCount() {
+        return addresses.hitCount();
+    }
+
+    public int getMissCount() {
+        return addresses.missCount();
+    }
+
+    public void clear() {
+        addresses.evictAll();
+    }
+
+    @Override
+    public String toString() {
+        return "ReverseGeocodeCache{hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", size=" + addresses.size() + "/" + addresses.maxSize() + "}";
+    }
+
+    /**
+     * @return key of the quantized cell containing the position; positions that share a
+     * cached address share a key
+     */
+    public long cellOf(double latitude, double longitude) {
+        long latitudeCell = Math.round(latitude * scale);
+        long longitudeCell = Math.round(longitude * scale);
+        return (latitudeCell << 32) ^ (longitudeCell & 0xffffffffL);
+    }
+}
@@ -0,0 +1,135 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import android.os.SystemClock;
+import android.util.LruCache;
+
+import com.tomtom.online.sdk.common.location.LatLng;
+import com.tomtom.online.sdk.routing.route.description.RouteType;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.Arrays;
+
+/**
+ * In-memory cache of planned routes with LRU eviction and a time to live, so switching
+ * between the base route and its waypoint variants does not plan them again. Entries are
+ * keyed by what the route specification is built from: start, stop, waypoints and route
+ * type. The time to live keeps routes from outliving the traffic they were planned for.
+ */
+public class RoutePlanCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 8;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 15 * 60 * 1000;
+
+    private final LruCache<Key, Entry> entries;
+    private final long timeToLiveMillis;
+    private int hitCount;
+    private int missCount;
+
+    public RoutePlanCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public RoutePlanCache(int maxEntries, long timeToLiveMillis) {
+        this.entries = new LruCache<>(maxEntries);
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public synchronized RouteGeometry get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt <= SystemClock.elapsedRealtime()) {
+            if (entry != null) {
+                entries.remove(key);
+            }
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.route;
+    }
+
+    public synchronized void put(Key key, RouteGeometry route) {
+        entries.put(key, new Entry(route, SystemClock.elapsedRealtime() + timeToLiveMillis));
+    }
+
+    public synchronized void invalidate() {
+        entries.evictAll();
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RoutePlanCache{hits=" + hitCount + ", misses=" + missCount
+                + ", size=" + entries.size() + "/" + entries.maxSize() + "}";
+    }
+
+    public static final class Key {
+
+        private final double[] coordinates;
+        private final RouteType routeType;
+
+        /**
+         * @param wayPoints waypoints in visiting order, or {@code null}
+         */
+        public Key(LatLng start, LatLng stop, LatLng[] wayPoints, RouteType routeType) {
+            int wayPointCount = wayPoints != null ? wayPoints.length : 0;
+            this.coordinates = new double[(2 + wayPointCount) * 2];
+            put(0, start);
+            put(1, stop);
+            for (int i = 0; i < wayPointCount; i++) {
+                put(2 + i, wayPoints[i]);
+            }
+            this.routeType = routeType;
+        }
+
+        /**
+         * @return stable text form of the key, used to persist the route
+         */
+        public String toPersistentKey() {
+            StringBuilder key = new StringBuilder("route/").append(routeType);
+            for (int i = 0; i < coordinates.length; i += 2) {
+                key.append(i == 0 ? '/' : ';').append(coordinates[i]).append(',').append(coordinates[i + 1]);
+            }
+            return key.toString();
+        }
+
+        private void put(int index, LatLng position) {
+            coordinates[index * 2] = position.getLatitude();
+            coordinates[index * 2 + 1] = position.getLongitude();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return routeType == other.routeType && Arrays.equals(coordinates, other.coordinates);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(coordinates) + routeType.hashCode();
+        }
+    }
+
+    private static final class Entry {
+
+        private final RouteGeometry route;
+        private final long expiresAt;
+
+        private Entry(RouteGeometry route, long expiresAt) {
+            this.route = route;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
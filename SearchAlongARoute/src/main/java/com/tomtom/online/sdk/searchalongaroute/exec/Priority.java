@@ -0,0 +1,28 @@
+package com.tomtom.online.sdk.searchalongaroute.exec;
+
+/**
+ * Priority of work on a {@link PriorityExecutor}, highest first.
+ */
+public enum Priority {
+
+    /**
+     * Work a user is waiting for: the reverse geocoding of a long-press, a route, a search
+     * and the preparation of what they put on the map.
+     */
+    USER("user"),
+
+    /**
+     * Work no user is waiting for yet: prefetches, warm-up loads and metrics dumps.
+     */
+    SPECULATIVE("speculative");
+
+    private final String label;
+
+    Priority(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,199 @@
+package com.tomtom.online.sdk.searchalongaroute.exec;
+
+import com.tomtom.online.sdk.searchalongaroute.metrics.QueueMetrics;
+import com.tomtom.online.sdk.searchalongaroute.metrics.ServiceMetrics;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Fixed pool of threads that runs queued tasks by {@link Priority}, and in the order they
+ * were queued within a priority. Speculative tasks run on at most
+ * {@code maxSpeculativeThreads} threads at a time, so the other threads are always free to
+ * pick up user work, and at the lowest thread priority, so they also yield the CPU to it.
+ * A running task is never preempted.
+ * <p>
+ * The depth of the queue of every priority and the time its tasks wait before they run
+ * are recorded in the {@link QueueMetrics} named {@code <name>.<priority>}. Tasks queued
+ * when the executor is shut down are dropped, as are tasks queued after that.
+ */
+public class PriorityExecutor {
+
+    private final String name;
+    private final int maxSpeculativeThreads;
+    private final Thread[] threads;
+    private final QueueMetrics[] queueMetrics = new QueueMetrics[Priority.values().length];
+    private final Scheduler[] schedulers = new Scheduler[Priority.values().length];
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition taskRunnable = lock.newCondition();
+    private long queuedCount;
+    private int runningSpeculativeCount;
+    private boolean shutdown;
+
+    /**
+     * @param threadCount           bound of the tasks running at a time
+     * @param maxSpeculativeThreads bound of the speculative tasks running at a time, at
+     *                              most {@code threadCount}
+     * @param metrics               registers the queue metrics in
+     */
+    public PriorityExecutor(String name, int threadCount, int maxSpeculativeThreads, ServiceMetrics metrics) {
+        if (threadCount < 1 || maxSpeculativeThreads < 1 || maxSpeculativeThreads > threadCount) {
+            throw new IllegalArgumentException("Invalid thread counts " + threadCount + "/" + maxSpeculativeThreads);
+        }
+        this.name = name;
+        this.maxSpeculativeThreads = maxSpeculativeThreads;
+        for (final Priority priority : Priority.values()) {
+            queueMetrics[priority.ordinal()] = metrics.queue(name + "." + priority.getLabel());
+            // Not an ExecutorService, so the scheduler never wraps the tasks in futures.
+            schedulers[priority.ordinal()] = Schedulers.from(command -> execute(priority, command));
+        }
+        threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(this::work, name + "-" + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /**
+     * @return a scheduler whose work is queued with {@code priority}
+     */
+    public Scheduler getScheduler(Priority priority) {
+        return schedulers[priority.ordinal()];
+    }
+
+    public QueueMetrics getQueueMetrics(Priority priority) {
+        return queueMetrics[priority.ordinal()];
+    }
+
+    public void execute(Priority priority, Runnable command) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            queue.add(new Task(priority, queuedCount++, System.nanoTime(), command));
+            queueMetrics[priority.ordinal()].recordQueued();
+            taskRunnable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the queued tasks and interrupts the running ones.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            for (Task task : queue) {
+                queueMetrics[task.priority.ordinal()].recordDropped();
+            }
+            queue.clear();
+            taskRunnable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "PriorityExecutor{" + name + ", threads=" + threads.length + ", queued=" + queue.size()
+                    + ", runningSpeculative=" + runningSpeculativeCount + "/" + maxSpeculativeThreads + "}";
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        Thread thread = Thread.currentThread();
+        int defaultPriority = thread.getPriority();
+        while (true) {
+            Task task;
+            lock.lock();
+            try {
+                while (!shutdown && !isNextTaskRunnable()) {
+                    taskRunnable.await();
+                }
+                if (shutdown) {
+                    return;
+                }
+                task = queue.poll();
+                if (task.priority == Priority.SPECULATIVE) {
+                    runningSpeculativeCount++;
+                }
+                queueMetrics[task.priority.ordinal()].recordStarted(System.nanoTime() - task.queuedNanos);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            if (task.priority == Priority.SPECULATIVE) {
+                thread.setPriority(Thread.MIN_PRIORITY);
+            }
+            try {
+                task.command.run();
+            } catch (Throwable error) {
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, error);
+            } finally {
+                // The interrupt of a cancelled task must not leak into the next one.
+                Thread.interrupted();
+                if (task.priority == Priority.SPECULATIVE) {
+                    thread.setPriority(defaultPriority);
+                    lock.lock();
+                    try {
+                        runningSpeculativeCount--;
+                        // A speculative task held back by the bound may run now.
+                        taskRunnable.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isNextTaskRunnable() {
+        Task next = queue.peek();
+        // User tasks are ahead of all speculative ones, so a held back head means no user work.
+        return next != null && (next.priority != Priority.SPECULATIVE || runningSpeculativeCount < maxSpeculativeThreads);
+    }
+
+    private static final class Task implements Comparable<Task> {
+
+        final Priority priority;
+        final long sequence;
+        final long queuedNanos;
+        final Runnable command;
+
+        Task(Priority priority, long sequence, long queuedNanos, Runnable command) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.queuedNanos = queuedNanos;
+            this.command = command;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
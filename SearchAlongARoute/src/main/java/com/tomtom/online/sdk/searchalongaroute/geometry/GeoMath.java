@@ -0,0 +1,70 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+/**
+ * Small-distance geodesy helpers. Distances are computed on a local equirectangular
+ * projection, which is accurate to well under a metre over the segment lengths of a
+ * planned route.
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    public static final double METERS_PER_DEGREE = Math.toRadians(1.0) * EARTH_RADIUS_METERS;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Number of metres per degree of longitude at the given latitude.
+     */
+    public static double metersPerDegreeLongitude(double latitude) {
+        return METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dy = (lat2 - lat1) * METERS_PER_DEGREE;
+        double dx = (lon2 - lon1) * metersPerDegreeLongitude((lat1 + lat2) * 0.5);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Position of the point on segment A-B closest to P, as a fraction in [0, 1] of the
+     * segment length.
+     */
+    public static double projectionFactor(double latP, double lonP,
+                                          double latA, double lonA,
+                                          double latB, double lonB) {
+        double metersPerDegreeLon = metersPerDegreeLongitude((latA + latB) * 0.5);
+        double bx = (lonB - lonA) * metersPerDegreeLon;
+        double by = (latB - latA) * METERS_PER_DEGREE;
+        double px = (lonP - lonA) * metersPerDegreeLon;
+        double py = (latP - latA) * METERS_PER_DEGREE;
+        return clampedFactor(px, py, bx, by);
+    }
+
+    /**
+     * Squared distance in metres from point P to the segment A-B.
+     */
+    public static double squaredDistanceToSegmentMeters(double latP, double lonP,
+                                                        double latA, double lonA,
+                                                        double latB, double lonB) {
+        double metersPerDegreeLon = metersPerDegreeLongitude((latA + latB) * 0.5);
+        double bx = (lonB - lonA) * metersPerDegreeLon;
+        double by = (latB - latA) * METERS_PER_DEGREE;
+        double px = (lonP - lonA) * metersPerDegreeLon;
+        double py = (latP - latA) * METERS_PER_DEGREE;
+
+        double t = clampedFactor(px, py, bx, by);
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return dx * dx + dy * dy;
+    }
+
+    private static double clampedFactor(double px, double py, double bx, double by) {
+        double lengthSquared = bx * bx + by * by;
+        if (lengthSquared == 0) {
+            return 0;
+        }
+        double t = (px * bx + py * by) / lengthSquared;
+        return t < 0 ? 0 : (t > 1 ? 1 : t);
+    }
+}
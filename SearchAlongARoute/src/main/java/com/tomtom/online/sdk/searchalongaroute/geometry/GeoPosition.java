@@ -0,0 +1,50 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.Locale;
+
+/**
+ * Immutable latitude and longitude in degrees, for code that does not depend on the SDK.
+ * Convert from and to SDK positions with {@link RouteCoordinates}.
+ */
+public final class GeoPosition {
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPosition(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof GeoPosition)) {
+            return false;
+        }
+        GeoPosition position = (GeoPosition) other;
+        return Double.compare(latitude, position.latitude) == 0
+                && Double.compare(longitude, position.longitude) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = Double.doubleToLongBits(latitude) * 31 + Double.doubleToLongBits(longitude);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.7f,%.7f", latitude, longitude);
+    }
+}
@@ -0,0 +1,123 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+/**
+ * Clips a route to the part still ahead of the vehicle, optionally capped at a horizon
+ * distance. The clipped route is reused until the vehicle has travelled
+ * {@code reuseDistanceMeters} past its start, so repeated searches send the same geometry
+ * and hit the same cache entries.
+ * <p>
+ * A vehicle further than {@link #MAX_OFF_ROUTE_METERS} from the route is treated as not
+ * having started it yet, and the route is clipped from its departure. A vehicle outside
+ * the bounding box of the route widened by that distance is rejected without projecting.
+ * <p>
+ * Clipping projects the vehicle position onto the route, which builds a
+ * {@link RouteProjector} on first use; call {@link #prepare()} off the main thread to build
+ * it ahead of the first clip.
+ */
+public final class RouteAheadClipper {
+
+    public static final double NO_HORIZON = Double.POSITIVE_INFINITY;
+    public static final double DEFAULT_REUSE_DISTANCE_METERS = 1_000;
+    public static final double MAX_OFF_ROUTE_METERS = 500;
+
+    private final RouteGeometry route;
+    private final double horizonMeters;
+    private final double reuseDistanceMeters;
+    private RouteProjector projector;
+    private RouteSegment clipped;
+
+    public RouteAheadClipper(RouteGeometry route, double horizonMeters) {
+        this(route, horizonMeters, DEFAULT_REUSE_DISTANCE_METERS);
+    }
+
+    public RouteAheadClipper(RouteGeometry route, double horizonMeters, double reuseDistanceMeters) {
+        this.route = route;
+        this.horizonMeters = horizonMeters;
+        this.reuseDistanceMeters = reuseDistanceMeters;
+    }
+
+    public RouteGeometry getRoute() {
+        return route;
+    }
+
+    /**
+     * Builds the projector of the route, when it is not built yet.
+     */
+    public synchronized void prepare() {
+        if (projector == null) {
+            projector = RouteProjector.build(route);
+        }
+    }
+
+    /**
+     * @return the part of the route ahead of the given vehicle position
+     */
+    public synchronized RouteSegment clip(double latitude, double longitude) {
+        double travelled = travelledDistance(latitude, longitude);
+        if (clipped != null && travelled >= clipped.getStartOffsetMeters()
+                && travelled - clipped.getStartOffsetMeters() < reuseDistanceMeters) {
+            return clipped;
+        }
+        clipped = clipAt(travelled);
+        return clipped;
+    }
+
+    /**
+     * @return the whole route, used when the vehicle position is unknown
+     */
+    public RouteSegment full() {
+        return new RouteSegment(route, 0);
+    }
+
+    private double travelledDistance(double latitude, double longitude) {
+        if (!nearBoundingBox(latitude, longitude)) {
+            return 0;
+        }
+        prepare();
+        int segment = projector.nearestSegment(latitude, longitude, MAX_OFF_ROUTE_METERS);
+        return segment == -1 ? 0 : route.distanceAlongSegment(segment, latitude, longitude);
+    }
+
+    private boolean nearBoundingBox(double latitude, double longitude) {
+        double latitudeMargin = MAX_OFF_ROUTE_METERS / GeoMath.METERS_PER_DEGREE;
+        // Degrees of longitude are shortest at the latitude furthest from the equator.
+        double maxAbsLatitude = Math.min(89.0, Math.max(Math.abs(route.getMinLatitude()),
+                Math.abs(route.getMaxLatitude())) + latitudeMargin);
+        double longitudeMargin = MAX_OFF_ROUTE_METERS / GeoMath.metersPerDegreeLongitude(maxAbsLatitude);
+        return latitude >= route.getMinLatitude() - latitudeMargin
+                && latitude <= route.getMaxLatitude() + latitudeMargin
+                && longitude >= route.getMinLongitude() - longitudeMargin
+                && longitude <= route.getMaxLongitude() + longitudeMargin;
+    }
+
+    private RouteSegment clipAt(double travelledMeters) {
+        int lastPoint = route.getPointCount() - 1;
+        if (lastPoint < 1) {
+            return full();
+        }
+        int first = Math.min(lastPointAtOrBefore(travelledMeters), lastPoint - 1);
+        int last = lastPoint;
+        double end = travelledMeters + horizonMeters;
+        if (end < route.getLengthMeters()) {
+            last = Math.max(lastPointAtOrBefore(end) + 1, first + 1);
+        }
+        if (first == 0 && last == lastPoint) {
+            return full();
+        }
+        return new RouteSegment(route.subRoute(first, last), route.getDistanceAlongRoute(first));
+    }
+
+    private int lastPointAtOrBefore(double distanceMeters) {
+        int low = 0;
+        int high = route.getPointCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (route.getDistanceAlongRoute(middle) <= distanceMeters) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
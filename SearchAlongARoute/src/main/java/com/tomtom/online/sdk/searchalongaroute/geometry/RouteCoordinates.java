@@ -0,0 +1,42 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import com.tomtom.online.sdk.common.location.LatLng;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts route coordinates between the SDK representation and {@link RouteGeometry} or
+ * {@link GeoPosition}.
+ */
+public final class RouteCoordinates {
+
+    private RouteCoordinates() {
+    }
+
+    public static RouteGeometry toGeometry(List<LatLng> coordinates) {
+        int[] coordinatesE7 = new int[coordinates.size() * 2];
+        int i = 0;
+        for (LatLng coordinate : coordinates) {
+            coordinatesE7[i++] = RouteGeometry.toE7(coordinate.getLatitude());
+            coordinatesE7[i++] = RouteGeometry.toE7(coordinate.getLongitude());
+        }
+        return RouteGeometry.fromE7(coordinatesE7);
+    }
+
+    public static List<LatLng> toLatLngs(RouteGeometry geometry) {
+        List<LatLng> coordinates = new ArrayList<>(geometry.getPointCount());
+        for (int i = 0; i < geometry.getPointCount(); i++) {
+            coordinates.add(new LatLng(geometry.getLatitude(i), geometry.getLongitude(i)));
+        }
+        return coordinates;
+    }
+
+    public static GeoPosition toGeoPosition(LatLng position) {
+        return new GeoPosition(position.getLatitude(), position.getLongitude());
+    }
+
+    public static LatLng toLatLng(GeoPosition position) {
+        return new LatLng(position.getLatitude(), position.getLongitude());
+    }
+}
@@ -0,0 +1,195 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Immutable route polyline packed into a single {@code int[]} of E7 fixed-point
+ * {@code [lat0, lon0, lat1, lon1, ...]} coordinates (about 1 cm resolution). The distance
+ * from the first point to every point and the bounding box are computed once, on
+ * creation. Convert from and to SDK types with {@link RouteCoordinates}.
+ */
+public final class RouteGeometry {
+
+    private static final double E7 = 1e7;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] coordinatesE7;
+    private final double[] cumulativeDistances;
+    private final int minLatitudeE7;
+    private final int minLongitudeE7;
+    private final int maxLatitudeE7;
+    private final int maxLongitudeE7;
+    private long fingerprint;
+    private boolean fingerprintComputed;
+
+    private RouteGeometry(int[] coordinatesE7, double[] cumulativeDistances) {
+        if (coordinatesE7.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be latitude/longitude pairs");
+        }
+        this.coordinatesE7 = coordinatesE7;
+        this.cumulativeDistances = cumulativeDistances != null ? cumulativeDistances : computeCumulativeDistances(coordinatesE7);
+
+        int minLatitude = Integer.MAX_VALUE;
+        int minLongitude = Integer.MAX_VALUE;
+        int maxLatitude = Integer.MIN_VALUE;
+        int maxLongitude = Integer.MIN_VALUE;
+        for (int i = 0; i < coordinatesE7.length; i += 2) {
+            minLatitude = Math.min(minLatitude, coordinatesE7[i]);
+            maxLatitude = Math.max(maxLatitude, coordinatesE7[i]);
+            minLongitude = Math.min(minLongitude, coordinatesE7[i + 1]);
+            maxLongitude = Math.max(maxLongitude, coordinatesE7[i + 1]);
+        }
+        this.minLatitudeE7 = minLatitude;
+        this.minLongitudeE7 = minLongitude;
+        this.maxLatitudeE7 = maxLatitude;
+        this.maxLongitudeE7 = maxLongitude;
+    }
+
+    /**
+     * Wraps packed E7 coordinates. The array is not copied and must not be modified afterwards.
+     */
+    public static RouteGeometry fromE7(int[] coordinatesE7) {
+        return new RouteGeometry(coordinatesE7, null);
+    }
+
+    public static RouteGeometry fromDegrees(double[] coordinates) {
+        int[] coordinatesE7 = new int[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinatesE7[i] = toE7(coordinates[i]);
+        }
+        return new RouteGeometry(coordinatesE7, null);
+    }
+
+    public static int toE7(double degrees) {
+        return (int) Math.round(degrees * E7);
+    }
+
+    public int getPointCount() {
+        return coordinatesE7.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return coordinatesE7.length == 0;
+    }
+
+    public int getLatitudeE7(int point) {
+        return coordinatesE7[point * 2];
+    }
+
+    public int getLongitudeE7(int point) {
+        return coordinatesE7[point * 2 + 1];
+    }
+
+    public double getLatitude(int point) {
+        return coordinatesE7[point * 2] / E7;
+    }
+
+    public double getLongitude(int point) {
+        return coordinatesE7[point * 2 + 1] / E7;
+    }
+
+    /**
+     * Distance in metres from the first point of the route to the given point.
+     */
+    public double getDistanceAlongRoute(int point) {
+        return cumulativeDistances[point];
+    }
+
+    public double getLengthMeters() {
+        return cumulativeDistances.length > 0 ? cumulativeDistances[cumulativeDistances.length - 1] : 0;
+    }
+
+    public double getMinLatitude() {
+        return minLatitudeE7 / E7;
+    }
+
+    public double getMinLongitude() {
+        return minLongitudeE7 / E7;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitudeE7 / E7;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitudeE7 / E7;
+    }
+
+    /**
+     * Squared distance in metres from the given position to the segment starting at {@code segment}.
+     */
+    public double squaredDistanceToSegment(int segment, double latitude, double longitude) {
+        return GeoMath.squaredDistanceToSegmentMeters(latitude, longitude,
+                getLatitude(segment), getLongitude(segment),
+                getLatitude(segment + 1), getLongitude(segment + 1));
+    }
+
+    /**
+     * Distance along the route of the point on segment {@code segment} closest to the given position.
+     */
+    public double distanceAlongSegment(int segment, double latitude, double longitude) {
+        double factor = GeoMath.projectionFactor(latitude, longitude,
+                getLatitude(segment), getLongitude(segment),
+                getLatitude(segment + 1), getLongitude(segment + 1));
+        return cumulativeDistances[segment] + factor * (cumulativeDistances[segment + 1] - cumulativeDistances[segment]);
+    }
+
+    /**
+     * Points {@code firstPoint} to {@code lastPoint}, both inclusive, as a route of their own
+     * starting at distance zero.
+     */
+    public RouteGeometry subRoute(int firstPoint, int lastPoint) {
+        int[] coordinates = Arrays.copyOfRange(coordinatesE7, firstPoint * 2, (lastPoint + 1) * 2);
+        double[] cumulative = new double[lastPoint - firstPoint + 1];
+        double base = cumulativeDistances[firstPoint];
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] = cumulativeDistances[firstPoint + i] - base;
+        }
+        return new RouteGeometry(coordinates, cumulative);
+    }
+
+    /**
+     * Copy of the route with only the points flagged in {@code keep}.
+     */
+    public RouteGeometry retain(boolean[] keep, int keptCount) {
+        int[] coordinates = new int[keptCount * 2];
+        int j = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                coordinates[j++] = coordinatesE7[i * 2];
+                coordinates[j++] = coordinatesE7[i * 2 + 1];
+            }
+        }
+        return new RouteGeometry(coordinates, null);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the coordinates, used to tell routes apart in caches.
+     */
+    public synchronized long getFingerprint() {
+        if (!fingerprintComputed) {
+            long hash = FNV_OFFSET_BASIS;
+            for (int coordinate : coordinatesE7) {
+                for (int shift = 0; shift < 32; shift += 8) {
+                    hash ^= (coordinate >>> shift) & 0xff;
+                    hash *= FNV_PRIME;
+                }
+            }
+            fingerprint = hash;
+            fingerprintComputed = true;
+        }
+        return fingerprint;
+    }
+
+    private static double[] computeCumulativeDistances(int[] coordinatesE7) {
+        int pointCount = coordinatesE7.length / 2;
+        double[] cumulative = new double[pointCount];
+        for (int i = 1; i < pointCount; i++) {
+            cumulative[i] = cumulative[i - 1] + GeoMath.distanceMeters(
+                    coordinatesE7[(i - 1) * 2] / E7, coordinatesE7[(i - 1) * 2 + 1] / E7,
+                    coordinatesE7[i * 2] / E7, coordinatesE7[i * 2 + 1] / E7);
+        }
+        return cumulative;
+    }
+}
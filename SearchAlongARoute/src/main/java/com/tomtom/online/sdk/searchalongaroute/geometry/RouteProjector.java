@@ -0,0 +1,225 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Projects positions onto a route to find their distance along it. Route segments are
+ * bucketed once into a sparse uniform grid, in the cells their line crosses, so a
+ * projection only checks the segments in the rings of cells around the position instead
+ * of every segment of the route.
+ * <p>
+ * The grid uses a local projection scaled for the highest latitude of the route, which
+ * never overestimates distances; a ring search can therefore stop as soon as the best
+ * segment found is closer than the nearest unvisited ring. A position further than
+ * {@link #MAX_RINGS} rings from the route falls back to a scan of every segment, which
+ * costs less than walking the empty rings in between.
+ */
+public final class RouteProjector {
+
+    private static final double MIN_CELL_SIZE_METERS = 50;
+    private static final double MAX_CELL_SIZE_METERS = 5_000;
+    private static final int MAX_CELLS_PER_AXIS = 40_000;
+    static final int MAX_RINGS = 16;
+
+    private final RouteGeometry route;
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double metersPerDegreeLongitude;
+    private final double cellSizeMeters;
+    private final int columns;
+    private final int rows;
+    private final int[] cellKeys;
+    private final int[] cellStarts;
+    private final int[] cellSegments;
+
+    private RouteProjector(RouteGeometry route) {
+        this.route = route;
+        this.originLatitude = route.getMinLatitude();
+        this.originLongitude = route.getMinLongitude();
+        double maxAbsLatitude = Math.min(89.0,
+                Math.max(Math.abs(route.getMinLatitude()), Math.abs(route.getMaxLatitude())));
+        this.metersPerDegreeLongitude = GeoMath.metersPerDegreeLongitude(maxAbsLatitude);
+
+        double width = (route.getMaxLongitude() - originLongitude) * metersPerDegreeLongitude;
+        double height = (route.getMaxLatitude() - originLatitude) * GeoMath.METERS_PER_DEGREE;
+        int segmentCount = Math.max(route.getPointCount() - 1, 1);
+        double cellSize = route.getLengthMeters() / segmentCount;
+        cellSize = Math.max(MIN_CELL_SIZE_METERS, Math.min(MAX_CELL_SIZE_METERS, cellSize));
+        cellSize = Math.max(cellSize, Math.max(width, height) / (MAX_CELLS_PER_AXIS - 1));
+        this.cellSizeMeters = cellSize;
+        this.columns = (int) (width / cellSize) + 1;
+        this.rows = (int) (height / cellSize) + 1;
+
+        // Pack (cell, segment) pairs into longs so a primitive sort groups them by cell.
+        long[] pairs = new long[16];
+        int pairCount = 0;
+        for (int segment = 0; segment < route.getPointCount() - 1; segment++) {
+            // Walk the cells crossed by the segment, so a long segment costs cells in
+            // proportion to its length instead of to the area of its bounding box.
+            double x0 = gridX(route.getLongitude(segment));
+            double y0 = gridY(route.getLatitude(segment));
+            double x1 = gridX(route.getLongitude(segment + 1));
+            double y1 = gridY(route.getLatitude(segment + 1));
+            int column = (int) Math.floor(x0);
+            int row = (int) Math.floor(y0);
+            int columnSteps = Math.abs((int) Math.floor(x1) - column);
+            int rowSteps = Math.abs((int) Math.floor(y1) - row);
+            int columnStep = x1 > x0 ? 1 : -1;
+            int rowStep = y1 > y0 ? 1 : -1;
+            double columnDelta = x1 == x0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(x1 - x0);
+            double rowDelta = y1 == y0 ? Double.POSITIVE_INFINITY : 1 / Math.abs(y1 - y0);
+            double nextColumn = columnDelta * (columnStep > 0 ? column + 1 - x0 : x0 - column);
+            double nextRow = rowDelta * (rowStep > 0 ? row + 1 - y0 : y0 - row);
+            while (true) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairCount * 2);
+                }
+                pairs[pairCount++] = ((long) (row * columns + column) << 32) | segment;
+                if (columnSteps == 0 && rowSteps == 0) {
+                    break;
+                }
+                if (rowSteps == 0 || (columnSteps > 0 && nextColumn < nextRow)) {
+                    column += columnStep;
+                    nextColumn += columnDelta;
+                    columnSteps--;
+                } else {
+                    row += rowStep;
+                    nextRow += rowDelta;
+                    rowSteps--;
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        int[] keys = new int[pairCount];
+        int[] starts = new int[pairCount + 1];
+        int[] segments = new int[pairCount];
+        int cellCount = 0;
+        for (int i = 0; i < pairCount; i++) {
+            int key = (int) (pairs[i] >>> 32);
+            segments[i] = (int) pairs[i];
+            if (cellCount == 0 || keys[cellCount - 1] != key) {
+                keys[cellCount] = key;
+                starts[cellCount] = i;
+                cellCount++;
+            }
+        }
+        starts[cellCount] = pairCount;
+        this.cellKeys = Arrays.copyOf(keys, cellCount);
+        this.cellStarts = Arrays.copyOf(starts, cellCount + 1);
+        this.cellSegments = segments;
+    }
+
+    public static RouteProjector build(RouteGeometry route) {
+        return new RouteProjector(route);
+    }
+
+    public RouteGeometry getRoute() {
+        return route;
+    }
+
+    /**
+     * @return index of the route segment closest to the given position, or -1 for a route
+     * without segments
+     */
+    public int nearestSegment(double latitude, double longitude) {
+        return nearestSegment(latitude, longitude, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @return index of the route segment closest to the given position, or -1 when no
+     * segment is within {@code maxDistanceMeters} of it
+     */
+    public int nearestSegment(double latitude, double longitude, double maxDistanceMeters) {
+        if (cellKeys.length == 0) {
+            return -1;
+        }
+        double x = gridX(longitude);
+        double y = gridY(latitude);
+        double outsideX = Math.max(0, Math.max(-x, x - columns));
+        double outsideY = Math.max(0, Math.max(-y, y - rows));
+        if (Math.hypot(outsideX, outsideY) * cellSizeMeters > maxDistanceMeters) {
+            return -1;
+        }
+        int column = clamp((int) Math.floor(x), columns);
+        int row = clamp((int) Math.floor(y), rows);
+        int maxRing = Math.min(Math.max(columns, rows), MAX_RINGS);
+        double maxDistanceSquared = maxDistanceMeters * maxDistanceMeters;
+
+        double bestDistanceSquared = Double.MAX_VALUE;
+        int bestSegment = -1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edgeRow = r == row - ring || r == row + ring;
+                int step = edgeRow ? 1 : Math.max(2 * ring, 1);
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = Arrays.binarySearch(cellKeys, r * columns + c);
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                        int segment = cellSegments[i];
+                        double distanceSquared = route.squaredDistanceToSegment(segment, latitude, longitude);
+                        if (distanceSquared < bestDistanceSquared) {
+                            bestDistanceSquared = distanceSquared;
+                            bestSegment = segment;
+                        }
+                    }
+                }
+            }
+            double reach = ring * cellSizeMeters;
+            if ((bestSegment != -1 && bestDistanceSquared <= reach * reach) || reach >= maxDistanceMeters
+                    || ring >= Math.max(columns, rows)) {
+                return bestDistanceSquared <= maxDistanceSquared ? bestSegment : -1;
+            }
+        }
+        return nearestSegmentByScan(latitude, longitude, maxDistanceSquared);
+    }
+    /**
+     * @return offset in metres from the start of the route to the point on it closest to
+     * the given position
+     */
+    public double distanceAlongRoute(double latitude, double longitude) {
+        int segment = nearestSegment(latitude, longitude);
+        return segment == -1 ? 0 : route.distanceAlongSegment(segment, latitude, longitude);
+    }
+
+    /**
+     * @return distance in metres from the given position to the route
+     */
+    public double distanceFromRoute(double latitude, double longitude) {
+        int segment = nearestSegment(latitude, longitude);
+        return segment == -1 ? Double.MAX_VALUE : Math.sqrt(route.squaredDistanceToSegment(segment, latitude, longitude));
+    }
+
+    private int nearestSegmentByScan(double latitude, double longitude, double maxDistanceSquared) {
+        double bestDistanceSquared = Double.MAX_VALUE;
+        int bestSegment = -1;
+        for (int segment = 0; segment < route.getPointCount() - 1; segment++) {
+            double distanceSquared = route.squaredDistanceToSegment(segment, latitude, longitude);
+            if (distanceSquared < bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                bestSegment = segment;
+            }
+        }
+        return bestDistanceSquared <= maxDistanceSquared ? bestSegment : -1;
+    }
+
+    private double gridX(double longitude) {
+        return (longitude - originLongitude) * metersPerDegreeLongitude / cellSizeMeters;
+    }
+
+    private double gridY(double latitude) {
+        return (latitude - originLatitude) * GeoMath.METERS_PER_DEGREE / cellSizeMeters;
+    }
+
+    private static int clamp(int value, int size) {
+        return value < 0 ? 0 : (value >= size ? size - 1 : value);
+    }
+}
@@ -0,0 +1,151 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Multi-resolution copy of a route for drawing it on a map: one {@link RouteSimplifier}
+ * level per band of zoom levels, each simplified to about a pixel at the finest zoom of its
+ * band, plus the full route for the zoom levels past the last band. Coarser levels are
+ * simplified from the next finer one rather than from the full route, so the deviations
+ * add up to at most {@code 8 / 7} of a level's own tolerance. Levels are simplified in
+ * chunks of {@link #CHUNK_POINTS} points, which bounds the cost of Douglas-Peucker on long
+ * winding routes at the price of keeping a few more points.
+ * <p>
+ * Zoom levels are those of 256 pixel Web Mercator tiles, as in the marker clustering.
+ */
+public final class RoutePyramid {
+
+    /**
+     * Finest zoom level of every band, coarsest first.
+     */
+    static final int[] BAND_ZOOMS = {5, 8, 11, 14, 17};
+    static final int CHUNK_POINTS = 1024;
+
+    private static final double TOLERANCE_PIXELS = 1.0;
+    private static final double EQUATOR_METERS_PER_PIXEL_AT_ZOOM_0 = 2 * Math.PI * GeoMath.EARTH_RADIUS_METERS / 256;
+
+    private final RouteGeometry[] levels;
+
+    private RoutePyramid(RouteGeometry[] levels) {
+        this.levels = levels;
+    }
+
+    public static RoutePyramid build(RouteGeometry route) {
+        // Pixels are smallest in metres at the latitude farthest from the equator.
+        double maxAbsoluteLatitude = route.isEmpty() ? 0
+                : Math.max(Math.abs(route.getMinLatitude()), Math.abs(route.getMaxLatitude()));
+        RouteGeometry[] levels = new RouteGeometry[BAND_ZOOMS.length + 1];
+        levels[BAND_ZOOMS.length] = route;
+        for (int level = BAND_ZOOMS.length - 1; level >= 0; level--) {
+            double toleranceMeters = TOLERANCE_PIXELS * metersPerPixel(BAND_ZOOMS[level], maxAbsoluteLatitude);
+            levels[level] = simplifyInChunks(levels[level + 1], toleranceMeters);
+        }
+        return new RoutePyramid(levels);
+    }
+
+    /**
+     * Ground size of a map pixel at the given zoom level and latitude.
+     */
+    public static double metersPerPixel(double zoom, double latitude) {
+        return EQUATOR_METERS_PER_PIXEL_AT_ZOOM_0 * Math.cos(Math.toRadians(latitude)) / Math.pow(2, zoom);
+    }
+
+    /**
+     * @return the coarsest level that is accurate to a pixel at {@code zoom}
+     */
+    public int levelForZoom(double zoom) {
+        int level = 0;
+        while (level < BAND_ZOOMS.length && BAND_ZOOMS[level] < zoom) {
+            level++;
+        }
+        return level;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public RouteGeometry getLevel(int level) {
+        return levels[level];
+    }
+
+    /**
+     * Runs of consecutive points of a level whose segments may be visible in the given
+     * bounds, as {@code [first0, last0, first1, last1, ...]} point indexes. A segment is
+     * kept when its bounding box overlaps the bounds, so segments crossing the bounds
+     * without a point inside them are kept as well. A route of a single point inside the
+     * bounds is a run of that point.
+     */
+    public int[] clip(int level, double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        RouteGeometry route = levels[level];
+        int pointCount = route.getPointCount();
+        if (pointCount == 0) {
+            return new int[0];
+        }
+        if (route.getMinLatitude() >= minLatitude && route.getMaxLatitude() <= maxLatitude
+                && route.getMinLongitude() >= minLongitude && route.getMaxLongitude() <= maxLongitude) {
+            return new int[]{0, pointCount - 1};
+        }
+        int minLatitudeE7 = RouteGeometry.toE7(minLatitude);
+        int minLongitudeE7 = RouteGeometry.toE7(minLongitude);
+        int maxLatitudeE7 = RouteGeometry.toE7(maxLatitude);
+        int maxLongitudeE7 = RouteGeometry.toE7(maxLongitude);
+        if (pointCount == 1) {
+            boolean inside = route.getLatitudeE7(0) >= minLatitudeE7 && route.getLatitudeE7(0) <= maxLatitudeE7
+                    && route.getLongitudeE7(0) >= minLongitudeE7 && route.getLongitudeE7(0) <= maxLongitudeE7;
+            return inside ? new int[]{0, 0} : new int[0];
+        }
+
+        int[] runs = new int[8];
+        int runCount = 0;
+        int runStart = -1;
+        for (int segment = 0; segment < pointCount - 1; segment++) {
+            int latitudeA = route.getLatitudeE7(segment);
+            int longitudeA = route.getLongitudeE7(segment);
+            int latitudeB = route.getLatitudeE7(segment + 1);
+            int longitudeB = route.getLongitudeE7(segment + 1);
+            boolean visible = Math.max(latitudeA, latitudeB) >= minLatitudeE7
+                    && Math.min(latitudeA, latitudeB) <= maxLatitudeE7
+                    && Math.max(longitudeA, longitudeB) >= minLongitudeE7
+                    && Math.min(longitudeA, longitudeB) <= maxLongitudeE7;
+            if (visible && runStart < 0) {
+                runStart = segment;
+            } else if (!visible && runStart >= 0) {
+                runs = addRun(runs, runCount++, runStart, segment);
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) {
+            runs = addRun(runs, runCount++, runStart, pointCount - 1);
+        }
+        return Arrays.copyOf(runs, runCount * 2);
+    }
+
+    private static RouteGeometry simplifyInChunks(RouteGeometry route, double toleranceMeters) {
+        int lastPoint = route.getPointCount() - 1;
+        if (lastPoint <= CHUNK_POINTS) {
+            return RouteSimplifier.simplify(route, toleranceMeters).getGeometry();
+        }
+        int[] coordinatesE7 = new int[route.getPointCount() * 2];
+        int length = 0;
+        for (int first = 0; first < lastPoint; first += CHUNK_POINTS) {
+            RouteGeometry chunk = RouteSimplifier.simplify(
+                    route.subRoute(first, Math.min(lastPoint, first + CHUNK_POINTS)), toleranceMeters).getGeometry();
+            // Consecutive chunks share their boundary point.
+            for (int i = first == 0 ? 0 : 1; i < chunk.getPointCount(); i++) {
+                coordinatesE7[length++] = chunk.getLatitudeE7(i);
+                coordinatesE7[length++] = chunk.getLongitudeE7(i);
+            }
+        }
+        return RouteGeometry.fromE7(Arrays.copyOf(coordinatesE7, length));
+    }
+
+    private static int[] addRun(int[] runs, int runCount, int first, int last) {
+        if (runs.length < (runCount + 1) * 2) {
+            runs = Arrays.copyOf(runs, runs.length * 2);
+        }
+        runs[runCount * 2] = first;
+        runs[runCount * 2 + 1] = last;
+        return runs;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+/**
+ * A contiguous piece of a route together with its position along the full route.
+ */
+public final class RouteSegment {
+
+    private final RouteGeometry geometry;
+    private final double startOffsetMeters;
+
+    RouteSegment(RouteGeometry geometry, double startOffsetMeters) {
+        this.geometry = geometry;
+        this.startOffsetMeters = startOffsetMeters;
+    }
+
+    public RouteGeometry getGeometry() {
+        return geometry;
+    }
+
+    public double getStartOffsetMeters() {
+        return startOffsetMeters;
+    }
+}
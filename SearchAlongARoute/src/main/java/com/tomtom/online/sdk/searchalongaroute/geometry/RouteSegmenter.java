@@ -0,0 +1,49 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a route into corridor segments of roughly equal length. Neighbouring
+ * segments share at least {@code overlapMeters} of route so POIs near a boundary are
+ * found by both searches.
+ */
+public final class RouteSegmenter {
+
+    private RouteSegmenter() {
+    }
+
+    public static List<RouteSegment> split(RouteGeometry route, double segmentLengthMeters, double overlapMeters) {
+        if (segmentLengthMeters <= overlapMeters) {
+            throw new IllegalArgumentException("Segment length must be greater than the overlap");
+        }
+        int pointCount = route.getPointCount();
+
+        List<RouteSegment> segments = new ArrayList<>();
+        if (route.getLengthMeters() <= segmentLengthMeters) {
+            segments.add(new RouteSegment(route, 0));
+            return segments;
+        }
+
+        int first = 0;
+        while (first < pointCount - 1) {
+            double end = route.getDistanceAlongRoute(first) + segmentLengthMeters;
+            int last = first + 1;
+            while (last < pointCount - 1 && route.getDistanceAlongRoute(last) < end) {
+                last++;
+            }
+            segments.add(new RouteSegment(route.subRoute(first, last), route.getDistanceAlongRoute(first)));
+            if (last == pointCount - 1) {
+                break;
+            }
+
+            double nextStart = route.getDistanceAlongRoute(last) - overlapMeters;
+            int next = last;
+            while (next > first + 1 && route.getDistanceAlongRoute(next) > nextStart) {
+                next--;
+            }
+            first = next;
+        }
+        return segments;
+    }
+}
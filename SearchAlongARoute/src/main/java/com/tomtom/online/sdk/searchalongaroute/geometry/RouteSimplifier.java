@@ -0,0 +1,73 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+/**
+ * Douglas-Peucker simplification of a {@link RouteGeometry}.
+ * Every dropped point lies within the tolerance of the simplified polyline, so an along
+ * route search over the simplified route covers the same corridor.
+ */
+public final class RouteSimplifier {
+
+    /**
+     * Allowed deviation per second of detour budget. A POI reachable from the real route
+     * is reachable from the simplified one with at most two extra tolerances of driving,
+     * i.e. about 2% of the detour budget at urban speeds.
+     */
+    private static final double TOLERANCE_METERS_PER_DETOUR_SECOND = 0.1;
+    private static final double MAX_TOLERANCE_METERS = 500.0;
+
+    private RouteSimplifier() {
+    }
+
+    public static double toleranceForDetour(int maxDetourTimeSeconds) {
+        return Math.min(maxDetourTimeSeconds * TOLERANCE_METERS_PER_DETOUR_SECOND, MAX_TOLERANCE_METERS);
+    }
+
+    public static SimplifiedRoute simplify(RouteGeometry route, double toleranceMeters) {
+        int pointCount = route.getPointCount();
+        if (pointCount < 3 || toleranceMeters <= 0) {
+            return new SimplifiedRoute(route, pointCount);
+        }
+
+        boolean[] keep = new boolean[pointCount];
+        keep[0] = true;
+        keep[pointCount - 1] = true;
+        int keptCount = 2;
+
+        double toleranceSquared = toleranceMeters * toleranceMeters;
+        int[] stack = new int[pointCount * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = pointCount - 1;
+
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double latA = route.getLatitude(first);
+            double lonA = route.getLongitude(first);
+            double latB = route.getLatitude(last);
+            double lonB = route.getLongitude(last);
+
+            double maxDistanceSquared = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distanceSquared = GeoMath.squaredDistanceToSegmentMeters(
+                        route.getLatitude(i), route.getLongitude(i), latA, lonA, latB, lonB);
+                if (distanceSquared > maxDistanceSquared) {
+                    maxDistanceSquared = distanceSquared;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1 && maxDistanceSquared > toleranceSquared) {
+                keep[farthest] = true;
+                keptCount++;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        return new SimplifiedRoute(route.retain(keep, keptCount), pointCount);
+    }
+}
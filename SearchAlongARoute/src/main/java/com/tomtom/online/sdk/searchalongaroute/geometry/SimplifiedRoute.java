@@ -0,0 +1,50 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import java.util.Locale;
+
+/**
+ * Outcome of {@link RouteSimplifier#simplify(RouteGeometry, double)}: the route that was
+ * kept and how much of the original route was dropped.
+ */
+public final class SimplifiedRoute {
+
+    /**
+     * Approximate size of one point in the along route search request body,
+     * e.g. {@code {"lat":52.37421,"lon":4.91330},}.
+     */
+    static final int ESTIMATED_BYTES_PER_POINT = 32;
+
+    private final RouteGeometry geometry;
+    private final int originalPointCount;
+
+    SimplifiedRoute(RouteGeometry geometry, int originalPointCount) {
+        this.geometry = geometry;
+        this.originalPointCount = originalPointCount;
+    }
+
+    public RouteGeometry getGeometry() {
+        return geometry;
+    }
+
+    public int getPointCount() {
+        return geometry.getPointCount();
+    }
+
+    public int getOriginalPointCount() {
+        return originalPointCount;
+    }
+
+    public int getDroppedPointCount() {
+        return originalPointCount - getPointCount();
+    }
+
+    public long getEstimatedSavedBytes() {
+        return (long) getDroppedPointCount() * ESTIMATED_BYTES_PER_POINT;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d of %d route points kept, %d dropped, ~%d bytes saved",
+                getPointCount(), originalPointCount, getDroppedPointCount(), getEstimatedSavedBytes());
+    }
+}
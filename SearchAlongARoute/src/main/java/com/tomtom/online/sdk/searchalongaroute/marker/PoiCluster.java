@@ -0,0 +1,69 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+/**
+ * Summary of the POIs falling into one clustering cell: their count and centroid. A cluster
+ * of one POI keeps that POI and its key, so it keeps its marker across zoom levels.
+ */
+public final class PoiCluster {
+
+    final int level;
+    final int cellX;
+    final int cellY;
+    final double latitudeSum;
+    final double longitudeSum;
+    private final int size;
+    private final RoutePoi poi;
+
+    PoiCluster(int level, int cellX, int cellY, int size, double latitudeSum, double longitudeSum, RoutePoi poi) {
+        this.level = level;
+        this.cellX = cellX;
+        this.cellY = cellY;
+        this.size = size;
+        this.latitudeSum = latitudeSum;
+        this.longitudeSum = longitudeSum;
+        this.poi = poi;
+    }
+
+    public String getKey() {
+        return poi != null ? poi.getKey() : "cluster/" + level + "/" + cellX + "/" + cellY + "/" + size;
+    }
+
+    /**
+     * {@link #getKey()} extended with what the marker of the cluster shows: the name, address,
+     * category and distance along the route of a single POI, or the centroid of several
+     * POIs, which moves when the POIs of the cell change. Equal content keys render the same
+     * marker.
+     */
+    public String getContentKey() {
+        if (poi != null) {
+            return poi.getKey() + "|" + poi.getName() + "|" + poi.getAddress() + "|" + poi.getCategory()
+                    + "|" + Math.round(poi.getDistanceAlongRouteMeters());
+        }
+        return getKey() + "|" + latitudeSum + "|" + longitudeSum;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isSinglePoi() {
+        return poi != null;
+    }
+
+    /**
+     * @return the only POI of the cluster, or {@code null} for a cluster of several POIs
+     */
+    public RoutePoi getPoi() {
+        return poi;
+    }
+
+    public double getLatitude() {
+        return poi != null ? poi.getLatitude() : latitudeSum / size;
+    }
+
+    public double getLongitude() {
+        return poi != null ? poi.getLongitude() : longitudeSum / size;
+    }
+}
@@ -0,0 +1,136 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups POIs into clusters on a Web Mercator grid whose cells are about
+ * {@code 256 / 2^CELLS_PER_TILE_SHIFT} pixels wide at every zoom level. The cells of a
+ * level are the quadrants of the cells of the level above it, so every level is built by
+ * merging the clusters of the next finer level rather than by scanning all POIs again.
+ * Levels are built on first use and kept for later zoom changes.
+ */
+public final class PoiClusterer {
+
+    /**
+     * From this zoom level on every POI is shown on its own.
+     */
+    public static final int UNCLUSTERED_LEVEL = 17;
+
+    private static final int CELLS_PER_TILE_SHIFT = 2;
+    private static final int FINEST_LEVEL = UNCLUSTERED_LEVEL - 1;
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private final List<RoutePoi> pois;
+    private final Map<Integer, List<PoiCluster>> levels = new HashMap<>();
+
+    public PoiClusterer(List<RoutePoi> pois) {
+        this.pois = pois;
+    }
+
+    public static int levelForZoom(double zoom) {
+        return Math.max(0, Math.min(UNCLUSTERED_LEVEL, (int) Math.floor(zoom)));
+    }
+
+    public int getPoiCount() {
+        return pois.size();
+    }
+
+    public synchronized List<PoiCluster> clustersAt(int level) {
+        int clampedLevel = Math.max(0, Math.min(UNCLUSTERED_LEVEL, level));
+        List<PoiCluster> clusters = levels.get(clampedLevel);
+        if (clusters == null) {
+            if (clampedLevel == UNCLUSTERED_LEVEL) {
+                clusters = singles();
+            } else if (clampedLevel == FINEST_LEVEL) {
+                clusters = clusterPois();
+            } else {
+                clusters = merge(clustersAt(clampedLevel + 1), clampedLevel);
+            }
+            clusters = Collections.unmodifiableList(clusters);
+            levels.put(clampedLevel, clusters);
+        }
+        return clusters;
+    }
+
+    private List<PoiCluster> singles() {
+        List<PoiCluster> clusters = new ArrayList<>(pois.size());
+        for (RoutePoi poi : pois) {
+            clusters.add(new PoiCluster(UNCLUSTERED_LEVEL, 0, 0, 1, poi.getLatitude(), poi.getLongitude(), poi));
+        }
+        return clusters;
+    }
+
+    private List<PoiCluster> clusterPois() {
+        int cellsPerAxis = 1 << (FINEST_LEVEL + CELLS_PER_TILE_SHIFT);
+        Map<Long, List<RoutePoi>> cells = new HashMap<>();
+        for (RoutePoi poi : pois) {
+            int cellX = cellOf(mercatorX(poi.getLongitude()), cellsPerAxis);
+            int cellY = cellOf(mercatorY(poi.getLatitude()), cellsPerAxis);
+            Long key = cellKey(cellX, cellY);
+            List<RoutePoi> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<>(1);
+                cells.put(key, cell);
+            }
+            cell.add(poi);
+        }
+        List<PoiCluster> clusters = new ArrayList<>(cells.size());
+        for (Map.Entry<Long, List<RoutePoi>> cell : cells.entrySet()) {
+            int cellX = (int) (cell.getKey() >> 32);
+            int cellY = (int) (long) cell.getKey();
+            double latitudeSum = 0;
+            double longitudeSum = 0;
+            for (RoutePoi poi : cell.getValue()) {
+                latitudeSum += poi.getLatitude();
+                longitudeSum += poi.getLongitude();
+            }
+            int size = cell.getValue().size();
+            clusters.add(new PoiCluster(FINEST_LEVEL, cellX, cellY, size, latitudeSum, longitudeSum,
+                    size == 1 ? cell.getValue().get(0) : null));
+        }
+        return clusters;
+    }
+
+    private static List<PoiCluster> merge(List<PoiCluster> finer, int level) {
+        Map<Long, PoiCluster> cells = new HashMap<>();
+        for (PoiCluster cluster : finer) {
+            int cellX = cluster.cellX >> 1;
+            int cellY = cluster.cellY >> 1;
+            Long key = cellKey(cellX, cellY);
+            PoiCluster merged = cells.get(key);
+            if (merged == null) {
+                merged = new PoiCluster(level, cellX, cellY, cluster.getSize(),
+                        cluster.latitudeSum, cluster.longitudeSum, cluster.getPoi());
+            } else {
+                merged = new PoiCluster(level, cellX, cellY, merged.getSize() + cluster.getSize(),
+                        merged.latitudeSum + cluster.latitudeSum, merged.longitudeSum + cluster.longitudeSum, null);
+            }
+            cells.put(key, merged);
+        }
+        return new ArrayList<>(cells.values());
+    }
+
+    private static double mercatorX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    private static double mercatorY(double latitude) {
+        double clamped = Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static int cellOf(double mercator, int cellsPerAxis) {
+        return Math.max(0, Math.min(cellsPerAxis - 1, (int) (mercator * cellsPerAxis)));
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xffffffffL);
+    }
+}
@@ -0,0 +1,222 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+import android.util.Log;
+
+import com.tomtom.online.sdk.map.Marker;
+import com.tomtom.online.sdk.map.MarkerBuilder;
+import com.tomtom.online.sdk.map.TomtomMap;
+import com.tomtom.online.sdk.searchalongaroute.metrics.CallMetrics;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+/**
+ * Keeps the search result markers on a {@link TomtomMap} in sync with the latest result set.
+ * Results are grouped by a {@link PoiClusterer} for the current zoom level, and the clusters
+ * are diffed against the markers on screen by {@link PoiCluster#getContentKey()}, so the
+ * marker of a cluster whose POI or members changed is replaced. Clustering, the diff, the
+ * {@link PoiMarkerModel}s and the marker builders of new clusters are computed on a
+ * background scheduler, which also keeps the set of keys the markers on screen will have; the
+ * main thread only removes the markers that disappeared and adds the new ones, in a single
+ * pass, whose duration is recorded in the render metrics. A zoom change into another level
+ * re-uses the clusters of the result set.
+ * <p>
+ * All public methods must be called on the main thread.
+ */
+public class PoiMarkerLayer {
+
+    private static final String TAG = "PoiMarkerLayer";
+
+    /**
+     * Builds the marker of a cluster from its model. Called on the background scheduler.
+     */
+    public interface MarkerFactory {
+        MarkerBuilder create(PoiMarkerModel model);
+    }
+
+    private final TomtomMap tomtomMap;
+    private final PoiMarkerModelFactory modelFactory;
+    private final MarkerFactory markerFactory;
+    private final Scheduler backgroundScheduler;
+    private final Scheduler mainScheduler;
+    private final CallMetrics renderMetrics;
+    private final Map<String, Long> markerIds = new HashMap<>();
+    /**
+     * Keys of {@link #markerIds}, replaced rather than modified so that it can be handed to
+     * the background scheduler without a copy.
+     */
+    private Set<String> displayedKeys = Collections.emptySet();
+    private Disposable pendingUpdate = Disposables.disposed();
+    private Runnable pendingOnShown;
+    private List<RoutePoi> pois;
+    private double distanceOffsetMeters;
+    private PoiClusterer clusterer;
+    private int level;
+
+    public PoiMarkerLayer(TomtomMap tomtomMap, PoiMarkerModelFactory modelFactory, MarkerFactory markerFactory,
+                          Scheduler backgroundScheduler, Scheduler mainScheduler, CallMetrics renderMetrics) {
+        this.tomtomMap = tomtomMap;
+        this.modelFactory = modelFactory;
+        this.markerFactory = markerFactory;
+        this.backgroundScheduler = backgroundScheduler;
+        this.mainScheduler = mainScheduler;
+        this.renderMetrics = renderMetrics;
+        this.level = PoiClusterer.levelForZoom(tomtomMap.getZoomLevel());
+    }
+
+    /**
+     * Replaces the displayed POIs with {@code pois}, replacing any update still being prepared.
+     *
+     * @param distanceOffsetMeters added to the distance along the route of every POI
+     * @param onShown              run on the main thread once the markers are on the map
+     */
+    public void show(List<RoutePoi> pois, double distanceOffsetMeters, Runnable onShown) {
+        this.pois = pois;
+        this.distanceOffsetMeters = distanceOffsetMeters;
+        this.clusterer = null;
+        this.pendingOnShown = onShown;
+        update();
+    }
+
+    /**
+     * Re-clusters the displayed POIs when the zoom moves into another clustering level.
+     */
+    public void onZoomChanged(double zoom) {
+        int newLevel = PoiClusterer.levelForZoom(zoom);
+        if (newLevel != level) {
+            level = newLevel;
+            if (pois != null) {
+                update();
+            }
+        }
+    }
+
+    /**
+     * Removes all markers of this layer from the map.
+     */
+    public void clear() {
+        for (Long markerId : markerIds.values()) {
+            tomtomMap.removeMarkerByID(markerId);
+        }
+        reset();
+    }
+
+    /**
+     * Forgets the markers of this layer after the map itself was cleared.
+     */
+    public void reset() {
+        pendingUpdate.dispose();
+        pendingOnShown = null;
+        markerIds.clear();
+        displayedKeys = Collections.emptySet();
+        pois = null;
+        clusterer = null;
+    }
+
+    public int size() {
+        return markerIds.size();
+    }
+
+    private void update() {
+        pendingUpdate.dispose();
+        final List<RoutePoi> currentPois = pois;
+        final double currentOffset = distanceOffsetMeters;
+        final PoiClusterer currentClusterer = clusterer;
+        final int currentLevel = level;
+        final Set<String> currentKeys = displayedKeys;
+        pendingUpdate = Single.fromCallable(() -> {
+            PoiClusterer resultClusterer = currentClusterer != null
+                    ? currentClusterer : new PoiClusterer(offset(currentPois, currentOffset));
+            return prepare(currentKeys, resultClusterer, currentLevel);
+        })
+                .subscribeOn(backgroundScheduler)
+                .observeOn(mainScheduler)
+                .subscribe(update -> {
+                    clusterer = update.clusterer;
+                    apply(update);
+                    Runnable onShown = pendingOnShown;
+                    pendingOnShown = null;
+                    if (onShown != null) {
+                        onShown.run();
+                    }
+                }, error -> Log.w(TAG, "Marker update failed", error));
+    }
+
+    private static List<RoutePoi> offset(List<RoutePoi> pois, double distanceOffsetMeters) {
+        if (distanceOffsetMeters == 0) {
+            return pois;
+        }
+        List<RoutePoi> offsetPois = new ArrayList<>(pois.size());
+        for (RoutePoi poi : pois) {
+            offsetPois.add(poi.offsetAlongRoute(distanceOffsetMeters));
+        }
+        return offsetPois;
+    }
+
+    private Update prepare(Set<String> displayedKeys, PoiClusterer clusterer, int level) {
+        Update update = new Update(clusterer);
+        List<PoiCluster> clusters = clusterer.clustersAt(level);
+        Set<String> keys = new HashSet<>(clusters.size() * 2);
+        for (PoiCluster cluster : clusters) {
+            String key = cluster.getContentKey();
+            if (!keys.add(key) || displayedKeys.contains(key)) {
+                continue;
+            }
+            update.addedKeys.add(key);
+            update.addedMarkers.add(markerFactory.create(modelFactory.create(cluster)));
+        }
+        for (String key : displayedKeys) {
+            if (!keys.contains(key)) {
+                update.removedKeys.add(key);
+            }
+        }
+        update.keys = Collections.unmodifiableSet(keys);
+        return update;
+    }
+
+    private void apply(Update update) {
+        long start = System.nanoTime();
+        for (String key : update.removedKeys) {
+            Long markerId = markerIds.remove(key);
+            if (markerId != null) {
+                tomtomMap.removeMarkerByID(markerId);
+            }
+        }
+        for (int i = 0; i < update.addedKeys.size(); i++) {
+            String key = update.addedKeys.get(i);
+            if (!markerIds.containsKey(key)) {
+                Marker marker = tomtomMap.addMarker(update.addedMarkers.get(i));
+                markerIds.put(key, marker.getId());
+            }
+        }
+        displayedKeys = update.keys;
+        renderMetrics.recordSuccess(System.nanoTime() - start,
+                update.addedKeys.size() + update.removedKeys.size(), markerIds.size());
+        Log.d(TAG, "Markers +" + update.addedKeys.size() + " -" + update.removedKeys.size()
+                + ", displayed " + markerIds.size() + " for " + update.clusterer.getPoiCount() + " POIs");
+    }
+
+    private static final class Update {
+
+        private final PoiClusterer clusterer;
+        private final List<String> removedKeys = new ArrayList<>();
+        private final List<String> addedKeys = new ArrayList<>();
+        private final List<MarkerBuilder> addedMarkers = new ArrayList<>();
+        private Set<String> keys;
+
+        private Update(PoiClusterer clusterer) {
+            this.clusterer = clusterer;
+        }
+    }
+}
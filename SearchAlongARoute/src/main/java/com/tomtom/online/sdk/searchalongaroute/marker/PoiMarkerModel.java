@@ -0,0 +1,76 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+/**
+ * Immutable, ready to render content of a search result marker: its position and the texts
+ * of its balloon, already formatted. Built off the main thread by a
+ * {@link PoiMarkerModelFactory}.
+ */
+public final class PoiMarkerModel {
+
+    private final String key;
+    private final double latitude;
+    private final double longitude;
+    private final String title;
+    private final String address;
+    private final String detail;
+    private final int clusterSize;
+
+    PoiMarkerModel(String key, double latitude, double longitude,
+                   String title, String address, String detail, int clusterSize) {
+        this.key = key;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.title = title;
+        this.address = address;
+        this.detail = detail;
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * @see PoiCluster#getKey()
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return the name of the POI, or the summary of a cluster of several POIs
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return the address of the POI, or {@code null} for a cluster of several POIs
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * @return the distance along the route of the POI, or {@code null} for a cluster of
+     * several POIs
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    public boolean isCluster() {
+        return clusterSize > 1;
+    }
+
+    /**
+     * @return the number of POIs of the marker, 1 for a single POI
+     */
+    public int getClusterSize() {
+        return clusterSize;
+    }
+}
@@ -0,0 +1,77 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the clusters of a result set into {@link PoiMarkerModel}s. The formats are resolved
+ * once by the caller, and the names, addresses and categories that repeat across results and
+ * result sets, as well as the cluster titles, are kept as a single instance each, up to
+ * {@link #MAX_INTERNED_STRINGS}. Safe to call from any thread.
+ */
+public class PoiMarkerModelFactory {
+
+    static final int MAX_INTERNED_STRINGS = 4096;
+
+    private final String distanceAlongRouteFormat;
+    private final String categoryDistanceAlongRouteFormat;
+    private final String clusterTitleFormat;
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<Integer, String> clusterTitles = new HashMap<>();
+
+    /**
+     * @param distanceAlongRouteFormat         format of the distance in km along the route
+     * @param categoryDistanceAlongRouteFormat format of the category and the distance in km
+     *                                         along the route
+     * @param clusterTitleFormat               format of the number of POIs of a cluster
+     */
+    public PoiMarkerModelFactory(String distanceAlongRouteFormat, String categoryDistanceAlongRouteFormat,
+                                 String clusterTitleFormat) {
+        this.distanceAlongRouteFormat = distanceAlongRouteFormat;
+        this.categoryDistanceAlongRouteFormat = categoryDistanceAlongRouteFormat;
+        this.clusterTitleFormat = clusterTitleFormat;
+    }
+
+    public PoiMarkerModel create(PoiCluster cluster) {
+        RoutePoi poi = cluster.getPoi();
+        if (poi == null) {
+            return new PoiMarkerModel(cluster.getKey(), cluster.getLatitude(), cluster.getLongitude(),
+                    clusterTitle(cluster.getSize()), null, null, cluster.getSize());
+        }
+        double distanceAlongRouteKm = poi.getDistanceAlongRouteMeters() / 1000;
+        String detail = poi.getCategory() != null
+                ? String.format(categoryDistanceAlongRouteFormat, intern(poi.getCategory()), distanceAlongRouteKm)
+                : String.format(distanceAlongRouteFormat, distanceAlongRouteKm);
+        return new PoiMarkerModel(cluster.getKey(), poi.getLatitude(), poi.getLongitude(),
+                intern(poi.getName()), intern(poi.getAddress()), detail, 1);
+    }
+
+    private synchronized String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = strings.get(value);
+        if (interned == null) {
+            if (strings.size() >= MAX_INTERNED_STRINGS) {
+                strings.clear();
+            }
+            strings.put(value, value);
+            interned = value;
+        }
+        return interned;
+    }
+
+    private synchronized String clusterTitle(int size) {
+        String title = clusterTitles.get(size);
+        if (title == null) {
+            if (clusterTitles.size() >= MAX_INTERNED_STRINGS) {
+                clusterTitles.clear();
+            }
+            title = String.format(clusterTitleFormat, size);
+            clusterTitles.put(size, title);
+        }
+        return title;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tomtom.online.sdk.searchalongaroute.metrics;
+
+import java.util.Locale;
+
+/**
+ * Hit and miss counts of the lookups in one cache.
+ */
+public final class CacheMetrics {
+
+    private final String name;
+    private long hitCount;
+    private long missCount;
+
+    public CacheMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param hit whether the lookup was answered from the cache
+     */
+    public synchronized void recordLookup(boolean hit) {
+        if (hit) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public synchronized void reset() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    public synchronized String toJson() {
+        return String.format(Locale.ROOT, "{\"hits\":%d,\"misses\":%d,\"hitRate\":%.4f}",
+                hitCount, missCount, getHitRate());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%s hits=%d misses=%d rate=%.0f%%",
+                name, hitCount, missCount, getHitRate() * 100);
+    }
+}
@@ -0,0 +1,125 @@
+package com.tomtom.online.sdk.searchalongaroute.metrics;
+
+import java.util.Locale;
+
+import io.reactivex.Single;
+import io.reactivex.SingleTransformer;
+
+/**
+ * Latency, payload size and error counts of one kind of call. Request and response sizes
+ * are whatever unit fits the call, such as route points sent or results received.
+ */
+public final class CallMetrics {
+
+    /**
+     * Size of a response, in the unit recorded for the call.
+     */
+    public interface ResponseSize<T> {
+        int of(T response);
+    }
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long successCount;
+    private long errorCount;
+    private long requestSizeSum;
+    private int requestSizeMax;
+    private long responseSizeSum;
+    private int responseSizeMax;
+
+    public CallMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public synchronized void recordSuccess(long durationNanos, int requestSize, int responseSize) {
+        latency.recordNanos(durationNanos);
+        successCount++;
+        recordRequestSize(requestSize);
+        responseSizeSum += responseSize;
+        responseSizeMax = Math.max(responseSizeMax, responseSize);
+    }
+
+    public synchronized void recordError(long durationNanos, int requestSize) {
+        latency.recordNanos(durationNanos);
+        errorCount++;
+        recordRequestSize(requestSize);
+    }
+
+    /**
+     * Times every subscription to the upstream {@link Single}. Disposed calls are not recorded.
+     */
+    public <T> SingleTransformer<T, T> timed(final int requestSize, final ResponseSize<T> responseSize) {
+        return upstream -> Single.defer(() -> {
+            final long start = System.nanoTime();
+            return upstream
+                    .doOnSuccess(response -> recordSuccess(System.nanoTime() - start,
+                            requestSize, responseSize.of(response)))
+                    .doOnError(error -> recordError(System.nanoTime() - start, requestSize));
+        });
+    }
+
+    public synchronized long getCallCount() {
+        return successCount + errorCount;
+    }
+
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    public synchronized double getErrorRate() {
+        long calls = getCallCount();
+        return calls == 0 ? 0 : (double) errorCount / calls;
+    }
+
+    public synchronized double getMeanRequestSize() {
+        long calls = getCallCount();
+        return calls == 0 ? 0 : (double) requestSizeSum / calls;
+    }
+
+    public synchronized double getMeanResponseSize() {
+        return successCount == 0 ? 0 : (double) responseSizeSum / successCount;
+    }
+
+    public synchronized void reset() {
+        latency.reset();
+        successCount = 0;
+        errorCount = 0;
+        requestSizeSum = 0;
+        requestSizeMax = 0;
+        responseSizeSum = 0;
+        responseSizeMax = 0;
+    }
+
+    public synchronized String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"calls\":%d,\"errors\":%d,\"errorRate\":%.4f,"
+                        + "\"latencyMs\":{\"p50\":%.3f,\"p95\":%.3f,\"p99\":%.3f,\"max\":%.3f},"
+                        + "\"requestSize\":{\"mean\":%.1f,\"max\":%d},"
+                        + "\"responseSize\":{\"mean\":%.1f,\"max\":%d}}",
+                getCallCount(), errorCount, getErrorRate(),
+                latency.getPercentileMillis(50), latency.getPercentileMillis(95),
+                latency.getPercentileMillis(99), latency.getMaxMillis(),
+                getMeanRequestSize(), requestSizeMax, getMeanResponseSize(), responseSizeMax);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%s n=%d err=%.0f%% p50=%.0f p95=%.0f p99=%.0f ms in=%.0f out=%.0f",
+                name, getCallCount(), getErrorRate() * 100,
+                latency.getPercentileMillis(50), latency.getPercentileMillis(95), latency.getPercentileMillis(99),
+                getMeanRequestSize(), getMeanResponseSize());
+    }
+
+    private void recordRequestSize(int requestSize) {
+        requestSizeSum += requestSize;
+        requestSizeMax = Math.max(requestSizeMax, requestSize);
+    }
+}
@@ -0,0 +1,68 @@
+package com.tomtom.online.sdk.searchalongaroute.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations with logarithmic buckets, each about 5% wider than the
+ * previous one. Percentiles are therefore accurate to within about 5%, for any duration
+ * between one microsecond and a few hours, at a constant memory cost.
+ */
+public final class LatencyHistogram {
+
+    private static final double BUCKET_GROWTH = 1.05;
+    private static final double LOG_BUCKET_GROWTH = Math.log(BUCKET_GROWTH);
+    private static final int BUCKET_COUNT = 480;
+
+    private final int[] counts = new int[BUCKET_COUNT];
+    private long count;
+    private long maxMicros;
+
+    public synchronized void recordNanos(long nanos) {
+        long micros = Math.max(1, nanos / 1_000);
+        counts[bucketOf(micros)]++;
+        count++;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxMicros / 1_000.0;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the duration in milliseconds below which {@code percentile} percent of the
+     * recorded durations fall, or 0 when nothing was recorded
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(bucket), maxMicros) / 1_000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        maxMicros = 0;
+    }
+
+    private static int bucketOf(long micros) {
+        return Math.min(BUCKET_COUNT - 1, (int) (Math.log(micros) / LOG_BUCKET_GROWTH));
+    }
+
+    private static double upperBoundMicros(int bucket) {
+        return Math.pow(BUCKET_GROWTH, bucket + 1);
+    }
+}
@@ -0,0 +1,89 @@
+package com.tomtom.online.sdk.searchalongaroute.metrics;
+
+import java.util.Locale;
+
+/**
+ * Depth of a task queue and the time tasks wait in it before they run.
+ */
+public final class QueueMetrics {
+
+    private final String name;
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private int depth;
+    private int maxDepth;
+    private long startedCount;
+    private long droppedCount;
+
+    public QueueMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public synchronized void recordQueued() {
+        depth++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    public synchronized void recordStarted(long waitNanos) {
+        depth--;
+        startedCount++;
+        waitTime.recordNanos(waitNanos);
+    }
+
+    /**
+     * Records a queued task that was discarded without running.
+     */
+    public synchronized void recordDropped() {
+        depth--;
+        droppedCount++;
+    }
+
+    public synchronized int getDepth() {
+        return depth;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public synchronized long getStartedCount() {
+        return startedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Forgets the history; tasks still queued keep counting in the depth.
+     */
+    public synchronized void reset() {
+        maxDepth = depth;
+        startedCount = 0;
+        droppedCount = 0;
+        waitTime.reset();
+    }
+
+    public synchronized String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"started\":%d,\"dropped\":%d,\"depth\":%d,\"maxDepth\":%d,"
+                        + "\"waitMs\":{\"p50\":%.3f,\"p95\":%.3f,\"p99\":%.3f,\"max\":%.3f}}",
+                startedCount, droppedCount, depth, maxDepth,
+                waitTime.getPercentileMillis(50), waitTime.getPercentileMillis(95),
+                waitTime.getPercentileMillis(99), waitTime.getMaxMillis());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%s n=%d depth=%d max=%d wait p50=%.0f p95=%.0f ms",
+                name, startedCount, depth, maxDepth,
+                waitTime.getPercentileMillis(50), waitTime.getPercentileMillis(95));
+    }
+}
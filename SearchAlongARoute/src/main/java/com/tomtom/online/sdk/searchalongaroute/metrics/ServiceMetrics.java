@@ -0,0 +1,144 @@
+package com.tomtom.online.sdk.searchalongaroute.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link CallMetrics}, {@link CacheMetrics} and {@link QueueMetrics} of an
+ * app session, exported as a JSON dump to compare builds or as plain text for a debug
+ * overlay.
+ */
+public final class ServiceMetrics {
+
+    public static final String REVERSE_GEOCODING = "reverseGeocoding";
+    public static final String PLAN_ROUTE = "planRoute";
+    public static final String ALONG_ROUTE_SEARCH = "alongRouteSearch";
+    /**
+     * Main thread time spent putting search results on the map.
+     */
+    public static final String RENDER_RESULTS = "renderResults";
+    /**
+     * Main thread time spent putting the visible part of the route on the map.
+     */
+    public static final String RENDER_ROUTE = "renderRoute";
+    public static final String REVERSE_GEOCODING_CACHE = "reverseGeocodingCache";
+    public static final String ROUTE_PLAN_CACHE = "routePlanCache";
+    public static final String ALONG_ROUTE_SEARCH_CACHE = "alongRouteSearchCache";
+
+    private final Map<String, CallMetrics> calls = new LinkedHashMap<>();
+    private final Map<String, CacheMetrics> caches = new LinkedHashMap<>();
+    private final Map<String, QueueMetrics> queues = new LinkedHashMap<>();
+
+    public synchronized CallMetrics call(String name) {
+        CallMetrics metrics = calls.get(name);
+        if (metrics == null) {
+            metrics = new CallMetrics(name);
+            calls.put(name, metrics);
+        }
+        return metrics;
+    }
+
+    public synchronized List<CallMetrics> getCalls() {
+        return new ArrayList<>(calls.values());
+    }
+
+    public synchronized CacheMetrics cache(String name) {
+        CacheMetrics metrics = caches.get(name);
+        if (metrics == null) {
+            metrics = new CacheMetrics(name);
+            caches.put(name, metrics);
+        }
+        return metrics;
+    }
+
+    public synchronized List<CacheMetrics> getCaches() {
+        return new ArrayList<>(caches.values());
+    }
+
+    public synchronized QueueMetrics queue(String name) {
+        QueueMetrics metrics = queues.get(name);
+        if (metrics == null) {
+            metrics = new QueueMetrics(name);
+            queues.put(name, metrics);
+        }
+        return metrics;
+    }
+
+    public synchronized List<QueueMetrics> getQueues() {
+        return new ArrayList<>(queues.values());
+    }
+
+    public synchronized void reset() {
+        for (CallMetrics metrics : calls.values()) {
+            metrics.reset();
+        }
+        for (CacheMetrics metrics : caches.values()) {
+            metrics.reset();
+        }
+        for (QueueMetrics metrics : queues.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * @param build label of the build the metrics were recorded with
+     */
+    public String toJson(String build) {
+        StringBuilder json = new StringBuilder("{\"build\":\"").append(escape(build)).append("\",\"calls\":{");
+        List<CallMetrics> snapshot = getCalls();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(escape(snapshot.get(i).getName())).append("\":").append(snapshot.get(i).toJson());
+        }
+        json.append("},\"caches\":{");
+        List<CacheMetrics> cacheSnapshot = getCaches();
+        for (int i = 0; i < cacheSnapshot.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(escape(cacheSnapshot.get(i).getName())).append("\":")
+                    .append(cacheSnapshot.get(i).toJson());
+        }
+        json.append("},\"queues\":{");
+        List<QueueMetrics> queueSnapshot = getQueues();
+        for (int i = 0; i < queueSnapshot.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(escape(queueSnapshot.get(i).getName())).append("\":")
+                    .append(queueSnapshot.get(i).toJson());
+        }
+        return json.append("}}").toString();
+    }
+
+    public String toDebugText() {
+        StringBuilder text = new StringBuilder();
+        for (CallMetrics metrics : getCalls()) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(metrics);
+        }
+        for (CacheMetrics metrics : getCaches()) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(metrics);
+        }
+        for (QueueMetrics metrics : getQueues()) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(metrics);
+        }
+        return text.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
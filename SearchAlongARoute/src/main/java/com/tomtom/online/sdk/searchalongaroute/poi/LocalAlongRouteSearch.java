@@ -0,0 +1,94 @@
+package com.tomtom.online.sdk.searchalongaroute.poi;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoiMerger;
+import com.tomtom.online.sdk.searchalongaroute.search.SegmentedAlongRouteSearch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Answers along route searches from an on-device {@link PoiIndex} without any network
+ * round trip. The detour budget is turned into a corridor around the route; within every
+ * segment-length window of the route the {@code limit} POIs closest to the route are kept,
+ * mirroring what {@link SegmentedAlongRouteSearch} returns.
+ */
+public class LocalAlongRouteSearch implements AlongRouteSearch {
+
+    /**
+     * Half of the detour is spent driving away from the route, at an assumed 10 m/s.
+     */
+    private static final double CORRIDOR_METERS_PER_DETOUR_SECOND = 5.0;
+    private static final double MAX_CORRIDOR_METERS = 10_000;
+
+    private final PoiIndex index;
+    private final Scheduler scheduler;
+    private final double windowLengthMeters;
+
+    public LocalAlongRouteSearch(PoiIndex index, Scheduler scheduler) {
+        this(index, scheduler, SegmentedAlongRouteSearch.DEFAULT_SEGMENT_LENGTH_METERS);
+    }
+
+    public LocalAlongRouteSearch(PoiIndex index, Scheduler scheduler, double windowLengthMeters) {
+        this.index = index;
+        this.scheduler = scheduler;
+        this.windowLengthMeters = windowLengthMeters;
+    }
+
+    public static double corridorForDetour(int maxDetourTimeSeconds) {
+        return Math.min(maxDetourTimeSeconds * CORRIDOR_METERS_PER_DETOUR_SECOND, MAX_CORRIDOR_METERS);
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.fromCallable(() -> searchNow(route, query, maxDetourTime, limit))
+                .subscribeOn(scheduler);
+    }
+
+    public List<RoutePoi> searchNow(RouteGeometry route, String query, int maxDetourTime, int limit) {
+        final List<Match> matches = new ArrayList<>();
+        index.queryCorridor(route, corridorForDetour(maxDetourTime), query,
+                (poi, distanceFromRoute, distanceAlongRoute) ->
+                        matches.add(new Match(poi, distanceFromRoute, distanceAlongRoute)));
+        Collections.sort(matches, (first, second) ->
+                Double.compare(first.distanceFromRoute, second.distanceFromRoute));
+
+        Map<Integer, Integer> countPerWindow = new HashMap<>();
+        List<RoutePoi> results = new ArrayList<>();
+        for (Match match : matches) {
+            Integer window = (int) (match.distanceAlongRoute / windowLengthMeters);
+            Integer count = countPerWindow.get(window);
+            int taken = count != null ? count : 0;
+            if (taken < limit) {
+                countPerWindow.put(window, taken + 1);
+                results.add(new RoutePoi(index.getId(match.poi), index.getName(match.poi),
+                        index.getAddress(match.poi), index.getLatitude(match.poi),
+                        index.getLongitude(match.poi), match.distanceAlongRoute));
+            }
+        }
+        RoutePoiMerger.sortByDistanceAlongRoute(results);
+        return results;
+    }
+
+    private static final class Match {
+
+        private final int poi;
+        private final double distanceFromRoute;
+        private final double distanceAlongRoute;
+
+        private Match(int poi, double distanceFromRoute, double distanceAlongRoute) {
+            this.poi = poi;
+            this.distanceFromRoute = distanceFromRoute;
+            this.distanceAlongRoute = distanceAlongRoute;
+        }
+    }
+}
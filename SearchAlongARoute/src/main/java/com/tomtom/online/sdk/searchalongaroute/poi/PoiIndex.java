@@ -0,0 +1,296 @@
+package com.tomtom.online.sdk.searchalongaroute.poi;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only spatial index of POIs stored as a packed, sparse lat/lon grid. POIs are sorted
+ * by grid cell, so every cell is a contiguous range of the coordinate arrays and cells are
+ * found by binary search over the sorted cell keys.
+ * <p>
+ * The file format is a {@code "POI1"} magic number and a POI count followed by, per POI,
+ * its E7 latitude and longitude and the modified UTF-8 id, name, address and category.
+ */
+public final class PoiIndex {
+
+    private static final int MAGIC = 0x504f4931;
+    private static final double E7 = 1e7;
+    private static final double CELL_SIZE_DEGREES = 0.05;
+
+    private final long[] cellKeys;
+    private final int[] cellStarts;
+    private final int[] latitudesE7;
+    private final int[] longitudesE7;
+    private final String[] ids;
+    private final String[] names;
+    private final String[] addresses;
+    private final String[] categories;
+    private final String[] searchTexts;
+
+    private PoiIndex(long[] cellKeys, int[] cellStarts, int[] latitudesE7, int[] longitudesE7,
+                     String[] ids, String[] names, String[] addresses, String[] categories) {
+        this.cellKeys = cellKeys;
+        this.cellStarts = cellStarts;
+        this.latitudesE7 = latitudesE7;
+        this.longitudesE7 = longitudesE7;
+        this.ids = ids;
+        this.names = names;
+        this.addresses = addresses;
+        this.categories = categories;
+        this.searchTexts = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            searchTexts[i] = (names[i] + " " + categories[i]).toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Receives the POIs found by {@link #queryCorridor(RouteGeometry, double, String, CorridorVisitor)}.
+     */
+    public interface CorridorVisitor {
+        void visit(int poi, double distanceFromRouteMeters, double distanceAlongRouteMeters);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int poi) {
+        return ids[poi];
+    }
+
+    public String getName(int poi) {
+        return names[poi];
+    }
+
+    public String getAddress(int poi) {
+        return addresses[poi];
+    }
+
+    public String getCategory(int poi) {
+        return categories[poi];
+    }
+
+    public double getLatitude(int poi) {
+        return latitudesE7[poi] / E7;
+    }
+
+    public double getLongitude(int poi) {
+        return longitudesE7[poi] / E7;
+    }
+
+    /**
+     * Visits every POI whose name or category contains {@code text} (ignoring case) and
+     * which lies within {@code bufferMeters} of the route.
+     */
+    public void queryCorridor(RouteGeometry route, double bufferMeters, String text, CorridorVisitor visitor) {
+        if (route.getPointCount() < 2) {
+            return;
+        }
+        String needle = text.trim().toLowerCase(Locale.ROOT);
+        double bufferSquared = bufferMeters * bufferMeters;
+
+        for (Map.Entry<Long, SegmentList> cell : segmentsPerCell(route, bufferMeters).entrySet()) {
+            int cellIndex = Arrays.binarySearch(cellKeys, cell.getKey());
+            if (cellIndex < 0) {
+                continue;
+            }
+            SegmentList segments = cell.getValue();
+            for (int poi = cellStarts[cellIndex]; poi < cellStarts[cellIndex + 1]; poi++) {
+                if (!searchTexts[poi].contains(needle)) {
+                    continue;
+                }
+                double latitude = getLatitude(poi);
+                double longitude = getLongitude(poi);
+                double bestDistanceSquared = Double.MAX_VALUE;
+                int bestSegment = -1;
+                for (int s = 0; s < segments.size; s++) {
+                    int i = segments.items[s];
+                    double distanceSquared = route.squaredDistanceToSegment(i, latitude, longitude);
+                    if (distanceSquared < bestDistanceSquared) {
+                        bestDistanceSquared = distanceSquared;
+                        bestSegment = i;
+                    }
+                }
+                if (bestSegment != -1 && bestDistanceSquared <= bufferSquared) {
+                    visitor.visit(poi, Math.sqrt(bestDistanceSquared),
+                            route.distanceAlongSegment(bestSegment, latitude, longitude));
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps every grid cell within the buffer of the route to the route segments that may
+     * pass within the buffer of a point in that cell.
+     */
+    private static Map<Long, SegmentList> segmentsPerCell(RouteGeometry route, double bufferMeters) {
+        Map<Long, SegmentList> cells = new HashMap<>();
+        double bufferLatitude = bufferMeters / GeoMath.METERS_PER_DEGREE;
+        for (int i = 0; i < route.getPointCount() - 1; i++) {
+            double latA = route.getLatitude(i);
+            double lonA = route.getLongitude(i);
+            double latB = route.getLatitude(i + 1);
+            double lonB = route.getLongitude(i + 1);
+            double maxAbsLatitude = Math.min(Math.max(Math.abs(latA), Math.abs(latB)) + bufferLatitude, 89.0);
+            double bufferLongitude = bufferMeters / GeoMath.metersPerDegreeLongitude(maxAbsLatitude);
+
+            int minRow = cellOf(Math.min(latA, latB) - bufferLatitude);
+            int maxRow = cellOf(Math.max(latA, latB) + bufferLatitude);
+            int minColumn = cellOf(Math.min(lonA, lonB) - bufferLongitude);
+            int maxColumn = cellOf(Math.max(lonA, lonB) + bufferLongitude);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    Long key = cellKey(row, column);
+                    SegmentList segments = cells.get(key);
+                    if (segments == null) {
+                        segments = new SegmentList();
+                        cells.put(key, segments);
+                    }
+                    segments.add(i);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    public static PoiIndex read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a POI index file");
+        }
+        int count = input.readInt();
+        Builder builder = new Builder(count);
+        for (int i = 0; i < count; i++) {
+            int latitudeE7 = input.readInt();
+            int longitudeE7 = input.readInt();
+            builder.add(input.readUTF(), input.readUTF(), input.readUTF(), input.readUTF(),
+                    latitudeE7 / E7, longitudeE7 / E7);
+        }
+        return builder.build();
+    }
+
+    public void write(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(size());
+        for (int i = 0; i < size(); i++) {
+            output.writeInt(latitudesE7[i]);
+            output.writeInt(longitudesE7[i]);
+            output.writeUTF(ids[i]);
+            output.writeUTF(names[i]);
+            output.writeUTF(addresses[i]);
+            output.writeUTF(categories[i]);
+        }
+        output.flush();
+    }
+
+    public static final class Builder {
+
+        private final List<Entry> entries;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            entries = new ArrayList<>(expectedSize);
+        }
+
+        public Builder add(String id, String name, String address, String category, double latitude, double longitude) {
+            int latitudeE7 = (int) Math.round(latitude * E7);
+            int longitudeE7 = (int) Math.round(longitude * E7);
+            long key = cellKey(cellOf(latitudeE7 / E7), cellOf(longitudeE7 / E7));
+            entries.add(new Entry(key, latitudeE7, longitudeE7, id, name, address, category));
+            return this;
+        }
+
+        public PoiIndex build() {
+            List<Entry> sorted = new ArrayList<>(entries);
+            Collections.sort(sorted, (first, second) -> Long.compare(first.cellKey, second.cellKey));
+
+            int count = sorted.size();
+            int[] latitudesE7 = new int[count];
+            int[] longitudesE7 = new int[count];
+            String[] ids = new String[count];
+            String[] names = new String[count];
+            String[] addresses = new String[count];
+            String[] categories = new String[count];
+            long[] cellKeys = new long[count];
+            int[] cellStarts = new int[count + 1];
+            int cellCount = 0;
+            for (int i = 0; i < count; i++) {
+                Entry entry = sorted.get(i);
+                latitudesE7[i] = entry.latitudeE7;
+                longitudesE7[i] = entry.longitudeE7;
+                ids[i] = entry.id;
+                names[i] = entry.name;
+                addresses[i] = entry.address;
+                categories[i] = entry.category;
+                if (cellCount == 0 || cellKeys[cellCount - 1] != entry.cellKey) {
+                    cellKeys[cellCount] = entry.cellKey;
+                    cellStarts[cellCount] = i;
+                    cellCount++;
+                }
+            }
+            cellStarts[cellCount] = count;
+            return new PoiIndex(Arrays.copyOf(cellKeys, cellCount), Arrays.copyOf(cellStarts, cellCount + 1),
+                    latitudesE7, longitudesE7, ids, names, addresses, categories);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long cellKey;
+        private final int latitudeE7;
+        private final int longitudeE7;
+        private final String id;
+        private final String name;
+        private final String address;
+        private final String category;
+
+        private Entry(long cellKey, int latitudeE7, int longitudeE7,
+                      String id, String name, String address, String category) {
+            this.cellKey = cellKey;
+            this.latitudeE7 = latitudeE7;
+            this.longitudeE7 = longitudeE7;
+            this.id = id;
+            this.name = name;
+            this.address = address;
+            this.category = category;
+        }
+    }
+
+    private static final class SegmentList {
+
+        private int[] items = new int[4];
+        private int size;
+
+        private void add(int segment) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = segment;
+        }
+    }
+}
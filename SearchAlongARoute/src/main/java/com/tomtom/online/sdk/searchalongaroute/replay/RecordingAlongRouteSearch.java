@@ -0,0 +1,38 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+
+/**
+ * Records the results of an {@link AlongRouteSearch} and their latency into a
+ * {@link ServiceArchive}, for a {@link ReplayAlongRouteSearch} to answer with later.
+ * Failures are not recorded. The archive is written on the thread the results arrive on.
+ */
+public class RecordingAlongRouteSearch implements AlongRouteSearch {
+
+    private final AlongRouteSearch delegate;
+    private final ServiceArchive archive;
+
+    public RecordingAlongRouteSearch(AlongRouteSearch delegate, ServiceArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> {
+            final long start = System.nanoTime();
+            return delegate.search(route, query, maxDetourTime, limit)
+                    .doOnSuccess(results -> archive.recordSearchResults(
+                            ServiceArchive.searchKey(route, query, maxDetourTime, limit),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), results));
+        });
+    }
+}
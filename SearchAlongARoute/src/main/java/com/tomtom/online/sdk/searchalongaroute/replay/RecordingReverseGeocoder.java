@@ -0,0 +1,39 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Maybe;
+
+/**
+ * Records the responses of a {@link ReverseGeocoder} and their latency into a
+ * {@link ServiceArchive}, for a {@link ReplayReverseGeocoder} to answer with later.
+ * Failures are not recorded. The archive is written on the thread the response arrives on.
+ */
+public class RecordingReverseGeocoder implements ReverseGeocoder {
+
+    private final ReverseGeocoder delegate;
+    private final ServiceArchive archive;
+
+    public RecordingReverseGeocoder(ReverseGeocoder delegate, ServiceArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public Maybe<GeoPosition> reverseGeocode(final GeoPosition position) {
+        return Maybe.defer(() -> {
+            final long start = System.nanoTime();
+            return delegate.reverseGeocode(position)
+                    .doOnSuccess(address -> record(position, start, address))
+                    .doOnComplete(() -> record(position, start, null));
+        });
+    }
+
+    private void record(GeoPosition position, long startNanos, GeoPosition address) {
+        archive.recordReverseGeocoding(ServiceArchive.reverseGeocodingKey(position),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), address);
+    }
+}
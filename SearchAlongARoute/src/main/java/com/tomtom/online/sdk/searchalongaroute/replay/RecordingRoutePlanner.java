@@ -0,0 +1,37 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+
+/**
+ * Records the routes of a {@link RoutePlanner} and their latency into a
+ * {@link ServiceArchive}, for a {@link ReplayRoutePlanner} to answer with later.
+ * Failures are not recorded. The archive is written on the thread the route arrives on.
+ */
+public class RecordingRoutePlanner implements RoutePlanner {
+
+    private final RoutePlanner delegate;
+    private final ServiceArchive archive;
+
+    public RecordingRoutePlanner(RoutePlanner delegate, ServiceArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public Single<RouteGeometry> planRoute(final GeoPosition departure, final GeoPosition destination,
+                                           final GeoPosition[] wayPoints) {
+        return Single.defer(() -> {
+            final long start = System.nanoTime();
+            return delegate.planRoute(departure, destination, wayPoints)
+                    .doOnSuccess(route -> archive.recordRoute(
+                            ServiceArchive.routeKey(departure, destination, wayPoints),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), route));
+        });
+    }
+}
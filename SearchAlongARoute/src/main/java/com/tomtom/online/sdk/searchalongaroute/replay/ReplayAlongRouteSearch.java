@@ -0,0 +1,53 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.AlongRouteSearch;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Answers along route searches from a {@link ServiceArchive}, after the recorded latency or
+ * the one of {@link #latencyMillis(long)}. A search that was not recorded, on another route
+ * or with other parameters, fails with a {@link NoSuchElementException}.
+ */
+public class ReplayAlongRouteSearch implements AlongRouteSearch {
+
+    private final ServiceArchive archive;
+    private final Scheduler scheduler;
+
+    /**
+     * @param scheduler the latency is waited for on
+     */
+    public ReplayAlongRouteSearch(ServiceArchive archive, Scheduler scheduler) {
+        this.archive = archive;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> {
+            String key = ServiceArchive.searchKey(route, query, maxDetourTime, limit);
+            final ServiceArchive.Recording<List<RoutePoi>> recording = archive.getSearchResults(key);
+            if (recording == null) {
+                return Single.<List<RoutePoi>>error(new NoSuchElementException("Not recorded: " + key));
+            }
+            return Single.timer(latencyMillis(recording.getLatencyMillis()), TimeUnit.MILLISECONDS, scheduler)
+                    .map(tick -> recording.getResponse());
+        });
+    }
+
+    /**
+     * @return the latency to answer a response recorded with {@code recordedLatencyMillis}
+     * after; the recorded latency unless overridden
+     */
+    protected long latencyMillis(long recordedLatencyMillis) {
+        return recordedLatencyMillis;
+    }
+}
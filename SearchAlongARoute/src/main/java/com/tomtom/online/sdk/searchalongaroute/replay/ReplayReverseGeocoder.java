@@ -0,0 +1,54 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.search.ReverseGeocoder;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Answers reverse geocoding from a {@link ServiceArchive}, after the recorded latency or
+ * the one of {@link #latencyMillis(long)}. A position that was not recorded fails with a
+ * {@link NoSuchElementException}.
+ */
+public class ReplayReverseGeocoder implements ReverseGeocoder {
+
+    private final ServiceArchive archive;
+    private final Scheduler scheduler;
+
+    /**
+     * @param scheduler the latency is waited for on
+     */
+    public ReplayReverseGeocoder(ServiceArchive archive, Scheduler scheduler) {
+        this.archive = archive;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Maybe<GeoPosition> reverseGeocode(final GeoPosition position) {
+        return Single.defer(() -> {
+            String key = ServiceArchive.reverseGeocodingKey(position);
+            final ServiceArchive.Recording<GeoPosition> recording = archive.getReverseGeocoding(key);
+            if (recording == null) {
+                return Single.<ServiceArchive.Recording<GeoPosition>>error(
+                        new NoSuchElementException("Not recorded: " + key));
+            }
+            return Single.timer(latencyMillis(recording.getLatencyMillis()), TimeUnit.MILLISECONDS, scheduler)
+                    .map(tick -> recording);
+        })
+                .filter(recording -> recording.getResponse() != null)
+                .map(ServiceArchive.Recording::getResponse);
+    }
+
+    /**
+     * @return the latency to answer a response recorded with {@code recordedLatencyMillis}
+     * after; the recorded latency unless overridden
+     */
+    protected long latencyMillis(long recordedLatencyMillis) {
+        return recordedLatencyMillis;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.route.RoutePlanner;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Answers route planning from a {@link ServiceArchive}, after the recorded latency or the
+ * one of {@link #latencyMillis(long)}. A route that was not recorded fails with a
+ * {@link NoSuchElementException}.
+ */
+public class ReplayRoutePlanner implements RoutePlanner {
+
+    private final ServiceArchive archive;
+    private final Scheduler scheduler;
+
+    /**
+     * @param scheduler the latency is waited for on
+     */
+    public ReplayRoutePlanner(ServiceArchive archive, Scheduler scheduler) {
+        this.archive = archive;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Single<RouteGeometry> planRoute(final GeoPosition departure, final GeoPosition destination,
+                                           final GeoPosition[] wayPoints) {
+        return Single.defer(() -> {
+            String key = ServiceArchive.routeKey(departure, destination, wayPoints);
+            final ServiceArchive.Recording<RouteGeometry> recording = archive.getRoute(key);
+            if (recording == null) {
+                return Single.<RouteGeometry>error(new NoSuchElementException("Not recorded: " + key));
+            }
+            return Single.timer(latencyMillis(recording.getLatencyMillis()), TimeUnit.MILLISECONDS, scheduler)
+                    .map(tick -> recording.getResponse());
+        });
+    }
+
+    /**
+     * @return the latency to answer a response recorded with {@code recordedLatencyMillis}
+     * after; the recorded latency unless overridden
+     */
+    protected long latencyMillis(long recordedLatencyMillis) {
+        return recordedLatencyMillis;
+    }
+}
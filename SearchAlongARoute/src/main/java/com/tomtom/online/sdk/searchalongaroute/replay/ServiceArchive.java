@@ -0,0 +1,398 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Archive of recorded service responses with the latency they were answered with, for
+ * replaying the search flow without the network. Responses are keyed by their request:
+ * reverse geocoding by the E7 position, route planning by the E7 positions of the route
+ * points, along route search by the fingerprint of the searched route, the query, the
+ * detour budget and the limit. A request recorded again replaces the earlier response.
+ * <p>
+ * The file starts with a {@code "SARA"} magic number and a format version, followed by one
+ * record per response: its kind, the key, the latency in milliseconds and the length of the
+ * response followed by the response.
+ * Integers are variable length, and coordinates are E7 integers, zig-zag encoded; route
+ * points as deltas from the previous point, which mostly fit in two bytes. Strings are
+ * length-prefixed UTF-8, where a length of 0 stands for {@code null}. Records are appended
+ * as they are recorded, so a recording survives the process; a last record that is cut
+ * short or cannot be decoded, as a crash while appending leaves it, is dropped from the
+ * file when the archive is loaded. An undecodable record followed by others is an error.
+ * <p>
+ * The archive is loaded on first use. All methods do disk I/O and must not be called on
+ * the main thread.
+ */
+public class ServiceArchive {
+
+    private static final int MAGIC = 0x53415241;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte KIND_REVERSE_GEOCODING = 1;
+    private static final byte KIND_ROUTE = 2;
+    private static final byte KIND_SEARCH_RESULTS = 3;
+
+    /**
+     * A recorded response and the time it took.
+     */
+    public static final class Recording<T> {
+
+        private final long latencyMillis;
+        private final T response;
+
+        Recording(long latencyMillis, T response) {
+            this.latencyMillis = latencyMillis;
+            this.response = response;
+        }
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        /**
+         * @return the response; {@code null} for a reverse geocoding without any address
+         */
+        public T getResponse() {
+            return response;
+        }
+    }
+
+    private final File file;
+    private final Map<String, Recording<?>> recordings = new HashMap<>();
+    private boolean loaded;
+    private long length;
+    private IOException writeError;
+
+    public ServiceArchive(File file) {
+        this.file = file;
+    }
+
+    public static String reverseGeocodingKey(GeoPosition position) {
+        return "g" + e7(position);
+    }
+
+    public static String routeKey(GeoPosition departure, GeoPosition destination, GeoPosition[] wayPoints) {
+        StringBuilder key = new StringBuilder("r").append(e7(departure));
+        if (wayPoints != null) {
+            for (GeoPosition wayPoint : wayPoints) {
+                key.append(';').append(e7(wayPoint));
+            }
+        }
+        return key.append(';').append(e7(destination)).toString();
+    }
+
+    public static String searchKey(RouteGeometry route, String query, int maxDetourTime, int limit) {
+        return String.format(Locale.US, "s%016x,%d,%d,%d,%s",
+                route.getFingerprint(), route.getPointCount(), maxDetourTime, limit, query);
+    }
+
+    /**
+     * @return the recorded reverse geocoding, whose response is {@code null} when no address
+     * was found, or {@code null} when the position was not recorded
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized Recording<GeoPosition> getReverseGeocoding(String key) throws IOException {
+        load();
+        return (Recording<GeoPosition>) recordings.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Recording<RouteGeometry> getRoute(String key) throws IOException {
+        load();
+        return (Recording<RouteGeometry>) recordings.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized Recording<List<RoutePoi>> getSearchResults(String key) throws IOException {
+        load();
+        return (Recording<List<RoutePoi>>) recordings.get(key);
+    }
+
+    /**
+     * @param address the nearest address, or {@code null} when none was found
+     */
+    public void recordReverseGeocoding(String key, long latencyMillis, GeoPosition address) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            output.writeBoolean(address != null);
+            if (address != null) {
+                writeCoordinate(output, address.getLatitude());
+                writeCoordinate(output, address.getLongitude());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append(KIND_REVERSE_GEOCODING, key, latencyMillis, bytes.toByteArray(), address);
+    }
+
+    public void recordRoute(String key, long latencyMillis, RouteGeometry route) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(route.getPointCount() * 4 + 4);
+        DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            writeVarInt(output, route.getPointCount());
+            int previousLatitude = 0;
+            int previousLongitude = 0;
+            for (int i = 0; i < route.getPointCount(); i++) {
+                writeSignedVarInt(output, route.getLatitudeE7(i) - previousLatitude);
+                writeSignedVarInt(output, route.getLongitudeE7(i) - previousLongitude);
+                previousLatitude = route.getLatitudeE7(i);
+                previousLongitude = route.getLongitudeE7(i);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append(KIND_ROUTE, key, latencyMillis, bytes.toByteArray(), route);
+    }
+
+    public void recordSearchResults(String key, long latencyMillis, List<RoutePoi> results) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        try {
+            writeVarInt(output, results.size());
+            for (RoutePoi poi : results) {
+                writeCoordinate(output, poi.getLatitude());
+                writeCoordinate(output, poi.getLongitude());
+                output.writeDouble(poi.getDistanceAlongRouteMeters());
+                writeString(output, poi.getId());
+                writeString(output, poi.getName());
+                writeString(output, poi.getAddress());
+                writeString(output, poi.getCategory());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append(KIND_SEARCH_RESULTS, key, latencyMillis, bytes.toByteArray(),
+                Collections.unmodifiableList(new ArrayList<>(results)));
+    }
+
+    public synchronized int size() throws IOException {
+        load();
+        return recordings.size();
+    }
+
+    /**
+     * @return the error that stopped appending to the file, or {@code null}; responses
+     * recorded after it are kept in memory only
+     */
+    public synchronized IOException getWriteError() {
+        return writeError;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ServiceArchive{file=" + file + ", recordings=" + recordings.size() + ", bytes=" + length
+                + (writeError != null ? ", writeError=" + writeError.getMessage() : "") + "}";
+    }
+
+    private synchronized void append(byte kind, String key, long latencyMillis, byte[] response, Object value) {
+        try {
+            load();
+        } catch (IOException e) {
+            // An unreadable archive is not appended to, but the recording is kept in memory.
+            writeError = e;
+        }
+        recordings.put(key, new Recording<>(latencyMillis, value));
+        if (writeError != null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(response.length + key.length() + 16);
+        try (DataOutputStream record = new DataOutputStream(bytes)) {
+            if (length == 0) {
+                record.writeInt(MAGIC);
+                record.writeByte(VERSION);
+            }
+            record.writeByte(kind);
+            writeString(record, key);
+            writeVarInt(record, (int) Math.min(Integer.MAX_VALUE, latencyMillis));
+            writeVarInt(record, response.length);
+            record.write(response);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write(bytes.toByteArray());
+            length += bytes.size();
+        } catch (IOException e) {
+            writeError = e;
+        }
+    }
+
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists() || file.length() == 0) {
+            File directory = file.getParentFile();
+            if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            return;
+        }
+        byte[] bytes = new byte[(int) file.length()];
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            input.readFully(bytes);
+        }
+        ByteArrayInputStream byteInput = new ByteArrayInputStream(bytes);
+        DataInputStream input = new DataInputStream(byteInput);
+        if (bytes.length < 5 || input.readInt() != MAGIC || input.readByte() != VERSION) {
+            throw new IOException("Not a service archive of version " + VERSION + ": " + file);
+        }
+        long validLength = bytes.length - byteInput.available();
+        while (byteInput.available() > 0) {
+            Recording<?> recording;
+            String key;
+            long recordEnd = -1;
+            try {
+                int kind = input.readByte();
+                key = readString(input);
+                long latencyMillis = readVarInt(input);
+                int responseLength = readVarInt(input);
+                if (responseLength < 0 || responseLength > byteInput.available()) {
+                    throw new EOFException("Response of " + responseLength + " bytes cut short");
+                }
+                byte[] response = new byte[responseLength];
+                input.readFully(response);
+                recordEnd = bytes.length - byteInput.available();
+                recording = new Recording<>(latencyMillis,
+                        readResponse(kind, new DataInputStream(new ByteArrayInputStream(response))));
+            } catch (IOException | RuntimeException e) {
+                if (recordEnd != -1 && recordEnd < bytes.length) {
+                    throw new IOException("Corrupt record at offset " + validLength + " of " + file, e);
+                }
+                // The last record, cut short or garbled while it was appended.
+                break;
+            }
+            recordings.put(key, recording);
+            validLength = bytes.length - byteInput.available();
+        }
+        if (validLength < file.length()) {
+            try (RandomAccessFile truncated = new RandomAccessFile(file, "rw")) {
+                truncated.setLength(validLength);
+            }
+        }
+        length = validLength;
+    }
+
+    private static Object readResponse(int kind, DataInputStream input) throws IOException {
+        switch (kind) {
+            case KIND_REVERSE_GEOCODING:
+                return input.readBoolean() ? new GeoPosition(readCoordinate(input), readCoordinate(input)) : null;
+            case KIND_ROUTE: {
+                int pointCount = readVarInt(input);
+                int[] coordinatesE7 = new int[pointCount * 2];
+                int latitude = 0;
+                int longitude = 0;
+                for (int i = 0; i < pointCount; i++) {
+                    latitude += readSignedVarInt(input);
+                    longitude += readSignedVarInt(input);
+                    coordinatesE7[i * 2] = latitude;
+                    coordinatesE7[i * 2 + 1] = longitude;
+                }
+                return RouteGeometry.fromE7(coordinatesE7);
+            }
+            case KIND_SEARCH_RESULTS: {
+                int count = readVarInt(input);
+                List<RoutePoi> results = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    double latitude = readCoordinate(input);
+                    double longitude = readCoordinate(input);
+                    double distanceAlongRouteMeters = input.readDouble();
+                    String id = readString(input);
+                    String name = readString(input);
+                    String address = readString(input);
+                    String category = readString(input);
+                    results.add(new RoutePoi(id, name, address, latitude, longitude, distanceAlongRouteMeters, category));
+                }
+                return Collections.unmodifiableList(results);
+            }
+            default:
+                throw new IOException("Unknown record kind " + kind);
+        }
+    }
+
+    private static String e7(GeoPosition position) {
+        return RouteGeometry.toE7(position.getLatitude()) + "," + RouteGeometry.toE7(position.getLongitude());
+    }
+
+    private static void writeCoordinate(DataOutputStream output, double degrees) throws IOException {
+        writeSignedVarInt(output, RouteGeometry.toE7(degrees));
+    }
+
+    private static double readCoordinate(DataInputStream input) throws IOException {
+        return readSignedVarInt(input) / 1e7;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(output, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(output, bytes.length + 1);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = readVarInt(input);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > input.available()) {
+            throw new EOFException("String of " + (length - 1) + " bytes cut short");
+        }
+        byte[] bytes = new byte[length - 1];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeSignedVarInt(DataOutputStream output, int value) throws IOException {
+        writeVarInt(output, (value << 1) ^ (value >> 31));
+    }
+
+    private static int readSignedVarInt(DataInputStream input) throws IOException {
+        int value = readVarInt(input);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            output.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+}
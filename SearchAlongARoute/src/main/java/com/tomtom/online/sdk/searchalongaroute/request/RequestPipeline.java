@@ -0,0 +1,164 @@
+package com.tomtom.online.sdk.searchalongaroute.request;
+
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.DisposableSingleObserver;
+
+/**
+ * Runs at most one request of a kind at a time on behalf of a screen, and can outlive the
+ * screen that submitted it.
+ * <ul>
+ * <li>A request submitted with the key of the request in flight is coalesced into it: no
+ * new call is made and the new observer takes over the running one.</li>
+ * <li>A request with any other key cancels the one in flight (switch-latest), so only the
+ * latest observer ever receives a result.</li>
+ * <li>{@link #detach()} stops notifying the observer without cancelling the request, e.g.
+ * while a screen is recreated after a configuration change; {@link #attach} hands the
+ * request to a new observer. A result that arrives in between is kept and delivered on
+ * attach.</li>
+ * <li>{@link #dispose()} cancels the request in flight and rejects later submissions; call
+ * it when the owner of the pipeline is destroyed.</li>
+ * </ul>
+ * Requests should deliver their result on the thread {@link #submit} is called from.
+ */
+public class RequestPipeline<K, T> {
+
+    private final String name;
+    private InFlight inFlight;
+    private boolean disposed;
+    private long submittedCount;
+    private long coalescedCount;
+    private long cancelledCount;
+
+    public RequestPipeline(String name) {
+        this.name = name;
+    }
+
+    public synchronized void submit(K key, Single<T> request, DisposableSingleObserver<T> observer) {
+        if (disposed) {
+            observer.dispose();
+            return;
+        }
+        submittedCount++;
+        if (inFlight != null && inFlight.key.equals(key)) {
+            coalescedCount++;
+            Disposable previous = inFlight.observer;
+            inFlight.observer = inFlight.shared.subscribeWith(observer);
+            if (previous != null) {
+                previous.dispose();
+            }
+            return;
+        }
+        cancel();
+        final InFlight flight = new InFlight(key);
+        // Replayed, so that disposing a detached observer neither cancels the request nor loses its result.
+        flight.shared = request
+                .doFinally(() -> finished(flight))
+                .toObservable()
+                .replay(1)
+                .autoConnect(1, connection -> flight.connection = connection)
+                .singleOrError();
+        inFlight = flight;
+        flight.observer = flight.shared.subscribeWith(observer);
+        if (flight.finished && inFlight == flight) {
+            // Finished synchronously, before the observer was recorded.
+            inFlight = null;
+        }
+    }
+
+    /**
+     * Stops notifying the observer of the request in flight, which keeps running.
+     */
+    public synchronized void detach() {
+        if (inFlight != null && inFlight.observer != null) {
+            inFlight.observer.dispose();
+            inFlight.observer = null;
+        }
+    }
+
+    /**
+     * Hands the request in flight, or its result if it finished while detached, to
+     * {@code observer}.
+     *
+     * @return false, with {@code observer} disposed, when there is no such request
+     */
+    public synchronized boolean attach(DisposableSingleObserver<T> observer) {
+        if (disposed || inFlight == null) {
+            observer.dispose();
+            return false;
+        }
+        InFlight flight = inFlight;
+        if (flight.observer != null) {
+            flight.observer.dispose();
+        }
+        flight.observer = flight.shared.subscribeWith(observer);
+        if (flight.finished && inFlight == flight) {
+            inFlight = null;
+        }
+        return true;
+    }
+
+    /**
+     * Cancels the request in flight, if any. Its observer is not notified.
+     */
+    public synchronized void cancel() {
+        if (inFlight != null) {
+            cancelledCount++;
+            InFlight cancelled = inFlight;
+            inFlight = null;
+            if (cancelled.observer != null) {
+                cancelled.observer.dispose();
+            }
+            if (cancelled.connection != null) {
+                cancelled.connection.dispose();
+            }
+        }
+    }
+
+    public synchronized void dispose() {
+        cancel();
+        disposed = true;
+    }
+
+    public synchronized boolean isInFlight() {
+        return inFlight != null;
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RequestPipeline{" + name + ", submitted=" + submittedCount + ", coalesced=" + coalescedCount
+                + ", cancelled=" + cancelledCount + ", inFlight=" + (inFlight != null) + "}";
+    }
+
+    private synchronized void finished(InFlight flight) {
+        flight.finished = true;
+        if (inFlight == flight && flight.observer != null) {
+            inFlight = null;
+        }
+    }
+
+    private final class InFlight {
+
+        private final K key;
+        private Single<T> shared;
+        private Disposable connection;
+        private Disposable observer;
+        private boolean finished;
+
+        private InFlight(K key) {
+            this.key = key;
+        }
+    }
+}
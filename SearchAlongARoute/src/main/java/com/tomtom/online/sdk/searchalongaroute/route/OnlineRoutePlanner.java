@@ -0,0 +1,99 @@
+package com.tomtom.online.sdk.searchalongaroute.route;
+
+import com.tomtom.online.sdk.common.location.LatLng;
+import com.tomtom.online.sdk.routing.RoutingApi;
+import com.tomtom.online.sdk.routing.RoutingException;
+import com.tomtom.online.sdk.routing.route.RouteCalculationDescriptor;
+import com.tomtom.online.sdk.routing.route.RouteCallback;
+import com.tomtom.online.sdk.routing.route.RouteDescriptor;
+import com.tomtom.online.sdk.routing.route.RoutePlan;
+import com.tomtom.online.sdk.routing.route.RouteSpecification;
+import com.tomtom.online.sdk.routing.route.description.RouteType;
+import com.tomtom.online.sdk.routing.route.information.FullRoute;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.metrics.CallMetrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Single;
+
+/**
+ * Plans routes with the TomTom Routing API and returns the first route of the plan.
+ */
+public class OnlineRoutePlanner implements RoutePlanner {
+
+    private final RoutingApi routingApi;
+    private final RouteType routeType;
+    private final CallMetrics metrics;
+
+    /**
+     * @param metrics records every request, sized in route points sent and received
+     */
+    public OnlineRoutePlanner(RoutingApi routingApi, RouteType routeType, CallMetrics metrics) {
+        this.routingApi = routingApi;
+        this.routeType = routeType;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Single<RouteGeometry> planRoute(final GeoPosition departure, final GeoPosition destination,
+                                           final GeoPosition[] wayPoints) {
+        return Single.create(emitter -> {
+            RouteSpecification routeSpecification = createRouteSpecification(departure, destination, wayPoints);
+            final int routePointsSent = 2 + (wayPoints != null ? wayPoints.length : 0);
+            final long start = System.nanoTime();
+            routingApi.planRoute(routeSpecification, new RouteCallback() {
+                @Override
+                public void onSuccess(@NotNull RoutePlan routePlan) {
+                    int routePointsReceived = 0;
+                    for (FullRoute fullRoute : routePlan.getRoutes()) {
+                        routePointsReceived += fullRoute.getCoordinates().size();
+                    }
+                    metrics.recordSuccess(System.nanoTime() - start, routePointsSent, routePointsReceived);
+                    if (routePlan.getRoutes().isEmpty()) {
+                        emitter.onError(new IllegalStateException("No route found"));
+                    } else {
+                        emitter.onSuccess(RouteCoordinates.toGeometry(routePlan.getRoutes().get(0).getCoordinates()));
+                    }
+                }
+
+                @Override
+                public void onError(@NotNull RoutingException e) {
+                    metrics.recordError(System.nanoTime() - start, routePointsSent);
+                    emitter.onError(e);
+                }
+            });
+        });
+    }
+
+    private RouteSpecification createRouteSpecification(GeoPosition departure, GeoPosition destination,
+                                                        GeoPosition[] wayPoints) {
+        RouteDescriptor routeDescriptor = new RouteDescriptor.Builder()
+                .routeType(routeType)
+                .build();
+        RouteCalculationDescriptor routeCalculationDescriptor = createRouteCalculationDescriptor(routeDescriptor, wayPoints);
+        return new RouteSpecification.Builder(RouteCoordinates.toLatLng(departure), RouteCoordinates.toLatLng(destination))
+                .routeCalculationDescriptor(routeCalculationDescriptor)
+                .build();
+    }
+
+    private RouteCalculationDescriptor createRouteCalculationDescriptor(RouteDescriptor routeDescriptor,
+                                                                        GeoPosition[] wayPoints) {
+        if (wayPoints == null) {
+            return new RouteCalculationDescriptor.Builder()
+                    .routeDescription(routeDescriptor).build();
+        }
+        List<LatLng> wayPointPositions = new ArrayList<>(wayPoints.length);
+        for (GeoPosition wayPoint : wayPoints) {
+            wayPointPositions.add(RouteCoordinates.toLatLng(wayPoint));
+        }
+        return new RouteCalculationDescriptor.Builder()
+                .routeDescription(routeDescriptor)
+                .waypoints(wayPointPositions).build();
+    }
+}
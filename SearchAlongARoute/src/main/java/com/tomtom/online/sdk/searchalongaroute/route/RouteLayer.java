@@ -0,0 +1,250 @@
+package com.tomtom.online.sdk.searchalongaroute.route;
+
+import android.util.Log;
+import android.view.View;
+
+import com.tomtom.online.sdk.common.location.LatLng;
+import com.tomtom.online.sdk.map.CameraPosition;
+import com.tomtom.online.sdk.map.Icon;
+import com.tomtom.online.sdk.map.Route;
+import com.tomtom.online.sdk.map.RouteBuilder;
+import com.tomtom.online.sdk.map.TomtomMap;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RoutePyramid;
+import com.tomtom.online.sdk.searchalongaroute.metrics.CallMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+/**
+ * Draws a route on a {@link TomtomMap} from a {@link RoutePyramid}, so that only the level
+ * of detail that fits the zoom is submitted to the map, clipped to the viewport. The
+ * viewport is padded by {@link #VIEWPORT_MARGIN} on every side, and the route is submitted
+ * again only when the zoom moves into another level or the viewport leaves the padded
+ * bounds. The pyramid, the clipping and the coordinate conversion run on a background
+ * scheduler; the main thread only replaces the routes on the map, which is recorded in the
+ * render metrics. A clipped route is drawn as one map route per visible run of points.
+ * <p>
+ * All public methods must be called on the main thread.
+ */
+public class RouteLayer {
+
+    private static final String TAG = "RouteLayer";
+
+    /**
+     * Fraction of the viewport size added on every side of the clipped bounds.
+     */
+    static final double VIEWPORT_MARGIN = 0.5;
+
+    /**
+     * The map draws 512 dp tiles, twice the size of the 256 pixel tiles the zoom levels of
+     * {@link RoutePyramid} are defined on.
+     */
+    private static final double MAP_PIXELS_PER_DP = 0.5;
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private final TomtomMap tomtomMap;
+    private final View mapView;
+    private final Icon startIcon;
+    private final Icon endIcon;
+    private final Scheduler backgroundScheduler;
+    private final Scheduler mainScheduler;
+    private final CallMetrics renderMetrics;
+    private final List<Route> routes = new ArrayList<>();
+    private Disposable pendingUpdate = Disposables.disposed();
+    private Runnable pendingOnShown;
+    private RoutePyramid pyramid;
+    private CameraPosition cameraPosition;
+    private int renderedLevel = -1;
+    private double[] renderedBounds;
+
+    public RouteLayer(TomtomMap tomtomMap, View mapView, Icon startIcon, Icon endIcon,
+                      Scheduler backgroundScheduler, Scheduler mainScheduler, CallMetrics renderMetrics) {
+        this.tomtomMap = tomtomMap;
+        this.mapView = mapView;
+        this.startIcon = startIcon;
+        this.endIcon = endIcon;
+        this.backgroundScheduler = backgroundScheduler;
+        this.mainScheduler = mainScheduler;
+        this.renderMetrics = renderMetrics;
+    }
+
+    /**
+     * Replaces the displayed route with {@code route}.
+     *
+     * @param onShown run on the main thread once the route is on the map
+     */
+    public void show(final RouteGeometry route, Runnable onShown) {
+        pendingUpdate.dispose();
+        pyramid = null;
+        pendingOnShown = onShown;
+        pendingUpdate = Single.fromCallable(() -> RoutePyramid.build(route))
+                .subscribeOn(backgroundScheduler)
+                .observeOn(mainScheduler)
+                .subscribe(builtPyramid -> {
+                    pyramid = builtPyramid;
+                    Log.d(TAG, "Route pyramid of " + describe(builtPyramid));
+                    update();
+                }, error -> Log.w(TAG, "Route pyramid failed", error));
+    }
+
+    /**
+     * Submits another level or another part of the route when the camera moved out of what
+     * is on the map.
+     */
+    public void onCameraChanged(CameraPosition cameraPosition) {
+        this.cameraPosition = cameraPosition;
+        updateIfMoved();
+    }
+
+    /**
+     * Removes the route of this layer from the map.
+     */
+    public void clear() {
+        for (Route route : routes) {
+            tomtomMap.removeRoute(route);
+        }
+        reset();
+    }
+
+    /**
+     * Forgets the route of this layer after the map itself was cleared.
+     */
+    public void reset() {
+        pendingUpdate.dispose();
+        pendingOnShown = null;
+        routes.clear();
+        pyramid = null;
+        renderedLevel = -1;
+        renderedBounds = null;
+    }
+
+    private void updateIfMoved() {
+        if (pyramid == null || !pendingUpdate.isDisposed()) {
+            // Checked again once the pending update is on the map.
+            return;
+        }
+        double[] viewport = viewportBounds(0);
+        boolean outsideRenderedBounds = viewport != null
+                && (renderedBounds == null || !contains(renderedBounds, viewport));
+        if (pyramid.levelForZoom(tomtomMap.getZoomLevel()) != renderedLevel || outsideRenderedBounds) {
+            update();
+        }
+    }
+
+    private void update() {
+        pendingUpdate.dispose();
+        final RoutePyramid currentPyramid = pyramid;
+        // A new route is first drawn whole at the coarsest level, so that an overview run
+        // when it is shown fits all of it; the camera change then submits the fitting level.
+        boolean firstDraw = pendingOnShown != null;
+        final int level = firstDraw ? 0 : currentPyramid.levelForZoom(tomtomMap.getZoomLevel());
+        // Without a camera position or a laid out map view the whole level is drawn.
+        final double[] bounds = firstDraw ? null : viewportBounds(VIEWPORT_MARGIN);
+        pendingUpdate = Single.fromCallable(() -> prepare(currentPyramid, level, bounds))
+                .subscribeOn(backgroundScheduler)
+                .observeOn(mainScheduler)
+                .subscribe(builders -> {
+                    apply(builders);
+                    renderedLevel = level;
+                    renderedBounds = bounds;
+                    Runnable onShown = pendingOnShown;
+                    pendingOnShown = null;
+                    if (onShown != null) {
+                        onShown.run();
+                    }
+                    updateIfMoved();
+                }, error -> Log.w(TAG, "Route update failed", error));
+    }
+
+    private List<RouteBuilder> prepare(RoutePyramid pyramid, int level, double[] bounds) {
+        RouteGeometry route = pyramid.getLevel(level);
+        int lastPoint = route.getPointCount() - 1;
+        int[] runs = bounds != null
+                ? pyramid.clip(level, bounds[0], bounds[1], bounds[2], bounds[3])
+                : new int[]{0, lastPoint};
+        List<RouteBuilder> builders = new ArrayList<>(runs.length / 2);
+        for (int i = 0; i < runs.length; i += 2) {
+            int first = runs[i];
+            int last = runs[i + 1];
+            List<LatLng> coordinates = RouteCoordinates.toLatLngs(route.subRoute(first, last));
+            RouteBuilder builder = new RouteBuilder(coordinates);
+            if (first == 0) {
+                builder.startIcon(startIcon);
+            }
+            if (last == lastPoint) {
+                builder.endIcon(endIcon);
+            }
+            builders.add(builder);
+        }
+        Log.d(TAG, "Level " + level + ": " + (runs.length / 2) + " runs of " + route.getPointCount() + " points");
+        return builders;
+    }
+
+    private void apply(List<RouteBuilder> builders) {
+        long start = System.nanoTime();
+        for (Route route : routes) {
+            tomtomMap.removeRoute(route);
+        }
+        routes.clear();
+        for (RouteBuilder builder : builders) {
+            routes.add(tomtomMap.addRoute(builder));
+        }
+        renderMetrics.recordSuccess(System.nanoTime() - start, builders.size(), routes.size());
+    }
+
+    /**
+     * Bounds of the viewport around the camera, padded by {@code margin} of its size on
+     * every side, as {@code [minLatitude, minLongitude, maxLatitude, maxLongitude]}, or
+     * {@code null} when the viewport is not known. The half diagonal is used in both
+     * directions, so the bounds cover the viewport at any bearing.
+     */
+    private double[] viewportBounds(double margin) {
+        if (cameraPosition == null || cameraPosition.getPosition() == null
+                || mapView.getWidth() == 0 || mapView.getHeight() == 0) {
+            return null;
+        }
+        double density = mapView.getResources().getDisplayMetrics().density;
+        double halfDiagonalPixels = Math.hypot(mapView.getWidth(), mapView.getHeight()) / 2
+                / density * MAP_PIXELS_PER_DP;
+        double worldPixels = 256 * Math.pow(2, cameraPosition.getZoom());
+        double halfSize = halfDiagonalPixels * (1 + 2 * margin) / worldPixels;
+        LatLng center = cameraPosition.getPosition();
+        double centerX = (center.getLongitude() + 180) / 360;
+        double centerY = mercatorY(center.getLatitude());
+        return new double[]{
+                latitudeOf(centerY + halfSize),
+                Math.max(-180, (centerX - halfSize) * 360 - 180),
+                latitudeOf(centerY - halfSize),
+                Math.min(180, (centerX + halfSize) * 360 - 180)};
+    }
+
+    private static boolean contains(double[] outer, double[] inner) {
+        return inner[0] >= outer[0] && inner[1] >= outer[1] && inner[2] <= outer[2] && inner[3] <= outer[3];
+    }
+
+    private static double mercatorY(double latitude) {
+        double clamped = Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double latitudeOf(double mercatorY) {
+        double clamped = Math.max(0, Math.min(1, mercatorY));
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * clamped))));
+    }
+
+    private static String describe(RoutePyramid pyramid) {
+        StringBuilder description = new StringBuilder();
+        for (int level = 0; level < pyramid.getLevelCount(); level++) {
+            description.append(level == 0 ? "" : "/").append(pyramid.getLevel(level).getPointCount());
+        }
+        return description.append(" points").toString();
+    }
+}
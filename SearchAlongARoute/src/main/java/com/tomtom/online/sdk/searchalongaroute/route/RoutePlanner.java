@@ -0,0 +1,18 @@
+package com.tomtom.online.sdk.searchalongaroute.route;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import io.reactivex.Single;
+
+/**
+ * Plans a route from a departure to a destination.
+ */
+public interface RoutePlanner {
+
+    /**
+     * @param wayPoints positions the route passes through in order, or {@code null}
+     * @return the best route, or an error when there is none
+     */
+    Single<RouteGeometry> planRoute(GeoPosition departure, GeoPosition destination, GeoPosition[] wayPoints);
+}
@@ -0,0 +1,29 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.search.data.alongroute.AlongRouteSearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts SDK along route search results into {@link RoutePoi}s, at distance zero along
+ * the route until {@link SimplifyingAlongRouteSearch} projects them onto it.
+ */
+final class AlongRouteResults {
+
+    private AlongRouteResults() {
+    }
+
+    static List<RoutePoi> toRoutePois(List<AlongRouteSearchResult> results) {
+        List<RoutePoi> pois = new ArrayList<>(results.size());
+        for (AlongRouteSearchResult result : results) {
+            double latitude = result.getPosition().getLatitude();
+            double longitude = result.getPosition().getLongitude();
+            pois.add(new RoutePoi(result.getId(),
+                    result.getPoi() != null ? result.getPoi().getName() : null,
+                    result.getAddress() != null ? result.getAddress().getFreeformAddress() : null,
+                    latitude, longitude, 0));
+        }
+        return pois;
+    }
+}
@@ -0,0 +1,20 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.List;
+
+import io.reactivex.Single;
+
+/**
+ * Source of along route search results.
+ */
+public interface AlongRouteSearch {
+
+    /**
+     * @param maxDetourTime maximum detour time in seconds
+     * @param limit         maximum number of results per route segment
+     * @return deduplicated results ordered by distance along the route
+     */
+    Single<List<RoutePoi>> search(RouteGeometry route, String query, int maxDetourTime, int limit);
+}
@@ -0,0 +1,101 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import android.util.Log;
+
+import com.tomtom.online.sdk.searchalongaroute.cache.AlongRouteSearchCache;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+/**
+ * Speculatively runs along route searches for a fixed set of queries as soon as a route is
+ * known and stores the results in an {@link AlongRouteSearchCache}, so a later tap on one of
+ * the shortcut buttons is served from memory.
+ * <p>
+ * Prefetching runs one query at a time through the given search, which should share the
+ * metered service stack of user searches but run on schedulers of speculative priority that
+ * user searches are ahead of. It is limited to a number of queries and a time budget
+ * per route and should be cancelled whenever the user starts a search of their own. The
+ * detour is widened the same way as for user searches, so the cached results are the ones a
+ * user search would have found.
+ */
+public class CategoryPrefetcher {
+
+    private static final String TAG = "CategoryPrefetcher";
+
+    public static final int DEFAULT_MAX_QUERIES = 3;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 20_000;
+
+    private final AlongRouteSearchCache cache;
+    private final Scheduler computationScheduler;
+    private final AlongRouteSearch search;
+    private final int maxQueries;
+    private final long timeBudgetMillis;
+    private Disposable prefetch = Disposables.disposed();
+
+    /**
+     * @param search               the queries are searched with
+     * @param computationScheduler the prefetch is started and timed on
+     */
+    public CategoryPrefetcher(AlongRouteSearch search, AlongRouteSearchCache cache, Scheduler computationScheduler) {
+        this(search, cache, computationScheduler, DEFAULT_MAX_QUERIES, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    public CategoryPrefetcher(AlongRouteSearch search, AlongRouteSearchCache cache, Scheduler computationScheduler,
+                              int maxQueries, long timeBudgetMillis) {
+        this.cache = cache;
+        this.maxQueries = maxQueries;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.computationScheduler = computationScheduler;
+        this.search = new ProgressiveAlongRouteSearch(search);
+    }
+
+    /**
+     * Replaces any running prefetch with one for the given route and queries.
+     */
+    public synchronized void prefetch(final RouteGeometry route, List<String> queries,
+                                      final int maxDetourTime, final int limit) {
+        prefetch.dispose();
+        final List<String> budgetedQueries = new ArrayList<>(queries.subList(0, Math.min(maxQueries, queries.size())));
+        prefetch = Flowable.fromIterable(budgetedQueries)
+                .concatMapSingle(query -> prefetchQuery(route, query, maxDetourTime, limit))
+                .subscribeOn(computationScheduler)
+                .takeUntil(Flowable.timer(timeBudgetMillis, TimeUnit.MILLISECONDS, computationScheduler))
+                .subscribe(
+                        query -> Log.d(TAG, "Prefetched '" + query + "'"),
+                        error -> Log.w(TAG, "Prefetch failed", error));
+    }
+
+    /**
+     * Stops the running prefetch. Queries that already completed stay cached.
+     */
+    public synchronized void cancel() {
+        prefetch.dispose();
+    }
+
+    private Single<String> prefetchQuery(RouteGeometry route, final String query, final int maxDetourTime,
+                                         final int limit) {
+        final AlongRouteSearchCache.Key key =
+                new AlongRouteSearchCache.Key(route.getFingerprint(), query, maxDetourTime, limit);
+        if (cache.contains(key)) {
+            return Single.just(query);
+        }
+        return search.search(route, query, maxDetourTime, limit)
+                .map(results -> {
+                    cache.put(key, results);
+                    return query;
+                })
+                .onErrorReturn(error -> {
+                    Log.w(TAG, "Prefetch of '" + query + "' failed", error);
+                    return query;
+                });
+    }
+}
@@ -0,0 +1,75 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Searches along one route for several queries at once, e.g. gas stations and restaurants.
+ * All queries run concurrently against the same route geometry, which the caller may have
+ * simplified, so the result arrives in the time of the slowest query. Every result is tagged
+ * with the query it was found by, and POIs found by more than one query are merged by
+ * {@link PoiDeduplicator}, in favour of the earlier query.
+ */
+public class MultiCategoryAlongRouteSearch {
+
+    private static final char QUERY_SEPARATOR = ',';
+
+    private final AlongRouteSearch delegate;
+    private final Scheduler scheduler;
+
+    /**
+     * @param delegate  searches a single query
+     * @param scheduler the queries are subscribed on
+     */
+    public MultiCategoryAlongRouteSearch(AlongRouteSearch delegate, Scheduler scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    public Single<List<RoutePoi>> search(final RouteGeometry route, List<String> queries,
+                                         final int maxDetourTime, final int limit) {
+        return Flowable.fromIterable(queries)
+                .concatMapEager(query -> delegate.search(route, query, maxDetourTime, limit)
+                        .subscribeOn(scheduler)
+                        .map(results -> tag(results, query))
+                        .toFlowable())
+                .toList()
+                .map(PoiDeduplicator::merge);
+    }
+
+    /**
+     * Splits a search text like "gas station, restaurant" into its distinct queries.
+     */
+    public static List<String> parseQueries(String text) {
+        Set<String> queries = new LinkedHashSet<>();
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(QUERY_SEPARATOR, start);
+            if (end < 0) {
+                end = text.length();
+            }
+            String query = text.substring(start, end).trim();
+            if (!query.isEmpty()) {
+                queries.add(query);
+            }
+            start = end + 1;
+        }
+        return new ArrayList<>(queries);
+    }
+
+    private static List<RoutePoi> tag(List<RoutePoi> results, String query) {
+        List<RoutePoi> tagged = new ArrayList<>(results.size());
+        for (RoutePoi poi : results) {
+            tagged.add(poi.withCategory(query));
+        }
+        return tagged;
+    }
+}
@@ -0,0 +1,44 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.search.SearchApi;
+import com.tomtom.online.sdk.search.data.alongroute.AlongRouteSearchQueryBuilder;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.metrics.CallMetrics;
+
+import java.util.List;
+
+import io.reactivex.Single;
+
+/**
+ * Searches along a route with a single request to the TomTom Search API. The request runs
+ * on the thread that subscribes.
+ * <p>
+ * Results come in the order of the service, without a distance along the route: wrap this
+ * search in a {@link SimplifyingAlongRouteSearch}, which projects them once onto the route
+ * the user sees.
+ */
+public class OnlineAlongRouteSearch implements AlongRouteSearch {
+
+    private final SearchApi searchApi;
+    private final CallMetrics metrics;
+
+    /**
+     * @param metrics records every request, sized in route points sent and results received
+     */
+    public OnlineAlongRouteSearch(SearchApi searchApi, CallMetrics metrics) {
+        this.searchApi = searchApi;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> searchApi.alongRouteSearch(
+                new AlongRouteSearchQueryBuilder(query, RouteCoordinates.toLatLngs(route), maxDetourTime)
+                        .withLimit(limit)
+                        .build()))
+                .compose(metrics.timed(route.getPointCount(), response -> response.getResults().size()))
+                .map(response -> AlongRouteResults.toRoutePois(response.getResults()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.search.SearchApi;
+import com.tomtom.online.sdk.search.data.reversegeocoder.ReverseGeocoderSearchQueryBuilder;
+import com.tomtom.online.sdk.search.data.reversegeocoder.ReverseGeocoderSearchResponse;
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteCoordinates;
+import com.tomtom.online.sdk.searchalongaroute.metrics.CallMetrics;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+
+/**
+ * Reverse geocodes with the TomTom Search API. The request runs on the thread that subscribes.
+ */
+public class OnlineReverseGeocoder implements ReverseGeocoder {
+
+    private final SearchApi searchApi;
+    private final CallMetrics metrics;
+
+    /**
+     * @param metrics records every request, sized in addresses received
+     */
+    public OnlineReverseGeocoder(SearchApi searchApi, CallMetrics metrics) {
+        this.searchApi = searchApi;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Maybe<GeoPosition> reverseGeocode(final GeoPosition position) {
+        return Single.defer(() -> searchApi.reverseGeocoding(
+                new ReverseGeocoderSearchQueryBuilder(position.getLatitude(), position.getLongitude()).build()))
+                .compose(metrics.timed(1, response -> response.getAddresses().size()))
+                .filter(ReverseGeocoderSearchResponse::hasResults)
+                .map(response -> RouteCoordinates.toGeoPosition(response.getAddresses().get(0).getPosition()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges result lists of several searches into one list without duplicates, ordered by
+ * distance along the route. Two results are the same POI when they have the same id and
+ * the same position to 1e-7 degrees. Positions are packed into a {@code long} and looked up
+ * in an open addressing table, so merging creates no string keys or boxed values per result.
+ * <p>
+ * The first list a POI is found in decides its category; the shortest distance along the
+ * route found for it is kept.
+ */
+public final class PoiDeduplicator {
+
+    private static final double E7 = 1e7;
+
+    private PoiDeduplicator() {
+    }
+
+    public static List<RoutePoi> merge(List<List<RoutePoi>> resultLists) {
+        int total = 0;
+        for (List<RoutePoi> results : resultLists) {
+            total += results.size();
+        }
+        // Power of two capacity of at least twice the results keeps probe sequences short.
+        int capacity = Integer.highestOneBit(Math.max(1, total) * 2 - 1) << 1;
+        int mask = capacity - 1;
+        long[] positions = new long[capacity];
+        int[] indexes = new int[capacity];
+        List<RoutePoi> unique = new ArrayList<>(total);
+        for (List<RoutePoi> results : resultLists) {
+            for (RoutePoi poi : results) {
+                long position = pack(poi.getLatitude(), poi.getLongitude());
+                int slot = hash(position) & mask;
+                while (true) {
+                    int index = indexes[slot] - 1;
+                    if (index < 0) {
+                        positions[slot] = position;
+                        indexes[slot] = unique.size() + 1;
+                        unique.add(poi);
+                        break;
+                    }
+                    RoutePoi known = unique.get(index);
+                    if (positions[slot] == position && sameId(known, poi)) {
+                        if (poi.getDistanceAlongRouteMeters() < known.getDistanceAlongRouteMeters()) {
+                            unique.set(index, poi.withCategory(known.getCategory()));
+                        }
+                        break;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+            }
+        }
+        RoutePoiMerger.sortByDistanceAlongRoute(unique);
+        return unique;
+    }
+
+    /**
+     * @return the E7 latitude in the high and the E7 longitude in the low 32 bits
+     */
+    static long pack(double latitude, double longitude) {
+        return ((long) (int) Math.round(latitude * E7) << 32) | ((int) Math.round(longitude * E7) & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long position) {
+        return (int) ((position * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private static boolean sameId(RoutePoi first, RoutePoi second) {
+        return first.getId() == null ? second.getId() == null : first.getId().equals(second.getId());
+    }
+}
@@ -0,0 +1,75 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+
+/**
+ * Searches with a tight detour budget first and widens it in steps, up to the requested
+ * maximum, only until the merged results reach a target count. Dense areas are answered by
+ * the first, cheap search while sparse ones still get results from a wider detour.
+ */
+public class ProgressiveAlongRouteSearch implements AlongRouteSearch {
+
+    public static final int DEFAULT_TARGET_RESULT_COUNT = 10;
+
+    private static final int[] DEFAULT_DETOUR_STEPS_SECONDS = {120, 300, 600};
+
+    private final AlongRouteSearch delegate;
+    private final int[] detourStepsSeconds;
+    private final int targetResultCount;
+
+    public ProgressiveAlongRouteSearch(AlongRouteSearch delegate) {
+        this(delegate, DEFAULT_DETOUR_STEPS_SECONDS, DEFAULT_TARGET_RESULT_COUNT);
+    }
+
+    /**
+     * @param detourStepsSeconds increasing detour budgets tried before the maximum detour
+     */
+    public ProgressiveAlongRouteSearch(AlongRouteSearch delegate, int[] detourStepsSeconds, int targetResultCount) {
+        this.delegate = delegate;
+        this.detourStepsSeconds = detourStepsSeconds.clone();
+        this.targetResultCount = targetResultCount;
+    }
+
+    /**
+     * Emits the merged results after every step, ordered by distance along the route, and
+     * completes once there are enough of them or the maximum detour was searched.
+     */
+    public Flowable<List<RoutePoi>> searchProgressively(final RouteGeometry route, final String query,
+                                                        final int maxDetourTime, final int limit) {
+        return Flowable.defer(() -> {
+            final List<List<RoutePoi>> found = new ArrayList<>();
+            return Flowable.fromIterable(detourStepsUpTo(maxDetourTime))
+                    .concatMapSingle(detourTime -> delegate.search(route, query, detourTime, limit))
+                    .map(results -> {
+                        found.add(results);
+                        return RoutePoiMerger.merge(found);
+                    })
+                    .takeUntil(merged -> merged.size() >= targetResultCount);
+        });
+    }
+
+    /**
+     * @return the results of the last step {@link #searchProgressively} needed
+     */
+    @Override
+    public Single<List<RoutePoi>> search(RouteGeometry route, String query, int maxDetourTime, int limit) {
+        return searchProgressively(route, query, maxDetourTime, limit).lastOrError();
+    }
+
+    private List<Integer> detourStepsUpTo(int maxDetourTime) {
+        List<Integer> steps = new ArrayList<>(detourStepsSeconds.length + 1);
+        for (int step : detourStepsSeconds) {
+            if (step < maxDetourTime) {
+                steps.add(step);
+            }
+        }
+        steps.add(maxDetourTime);
+        return steps;
+    }
+}
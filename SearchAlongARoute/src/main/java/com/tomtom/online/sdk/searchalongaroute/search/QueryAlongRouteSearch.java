@@ -0,0 +1,40 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import java.util.List;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+
+/**
+ * Searches along a route for a search text as typed by the user: a text of comma separated
+ * queries is searched for all of them at once by a {@link MultiCategoryAlongRouteSearch},
+ * a single query progressively by a {@link ProgressiveAlongRouteSearch}.
+ */
+public class QueryAlongRouteSearch {
+
+    private final ProgressiveAlongRouteSearch progressiveSearch;
+    private final MultiCategoryAlongRouteSearch multiCategorySearch;
+
+    /**
+     * @param delegate  searches a single query with a single detour
+     * @param scheduler the queries of a multi-category search are subscribed on
+     */
+    public QueryAlongRouteSearch(AlongRouteSearch delegate, Scheduler scheduler) {
+        this.progressiveSearch = new ProgressiveAlongRouteSearch(delegate);
+        this.multiCategorySearch = new MultiCategoryAlongRouteSearch(progressiveSearch, scheduler);
+    }
+
+    /**
+     * Emits the results found so far while a single query is widened, ordered by distance
+     * along the route, and completes with the final results.
+     */
+    public Flowable<List<RoutePoi>> search(RouteGeometry route, String text, int maxDetourTime, int limit) {
+        List<String> queries = MultiCategoryAlongRouteSearch.parseQueries(text);
+        if (queries.size() > 1) {
+            return multiCategorySearch.search(route, queries, maxDetourTime, limit).toFlowable();
+        }
+        return progressiveSearch.searchProgressively(route, text.trim(), maxDetourTime, limit);
+    }
+}
@@ -0,0 +1,150 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Configuration of {@link ResilientAlongRouteSearch}.
+ * <p>
+ * A hedged request is sent once a request has been running for longer than the observed
+ * p95 latency, bounded by {@code minHedgeDelayMillis} and {@code maxHedgeDelayMillis}.
+ * Until {@code hedgeMinSamples} latencies were observed, {@code maxHedgeDelayMillis} is used.
+ * <p>
+ * Transient errors are retried after a random delay between zero and
+ * {@code retryBaseDelayMillis * 2^attempt}, capped at {@code retryMaxDelayMillis}, as long
+ * as the retry starts within {@code totalBudgetMillis} of the first attempt.
+ */
+public final class ResiliencePolicy {
+
+    /**
+     * Decides whether a failed request is worth retrying.
+     */
+    public interface TransientErrorPredicate {
+        boolean isTransient(Throwable error);
+    }
+
+    /**
+     * Treats I/O errors and timeouts, also when wrapped, as transient.
+     */
+    public static final TransientErrorPredicate IO_ERRORS = error -> {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    };
+
+    private final boolean hedgingEnabled;
+    private final int hedgeMinSamples;
+    private final long minHedgeDelayMillis;
+    private final long maxHedgeDelayMillis;
+    private final int maxAttempts;
+    private final long retryBaseDelayMillis;
+    private final long retryMaxDelayMillis;
+    private final long totalBudgetMillis;
+    private final TransientErrorPredicate transientErrors;
+
+    private ResiliencePolicy(Builder builder) {
+        this.hedgingEnabled = builder.hedgingEnabled;
+        this.hedgeMinSamples = builder.hedgeMinSamples;
+        this.minHedgeDelayMillis = builder.minHedgeDelayMillis;
+        this.maxHedgeDelayMillis = builder.maxHedgeDelayMillis;
+        this.maxAttempts = builder.maxAttempts;
+        this.retryBaseDelayMillis = builder.retryBaseDelayMillis;
+        this.retryMaxDelayMillis = builder.retryMaxDelayMillis;
+        this.totalBudgetMillis = builder.totalBudgetMillis;
+        this.transientErrors = builder.transientErrors;
+    }
+
+    public boolean isHedgingEnabled() {
+        return hedgingEnabled;
+    }
+
+    public int getHedgeMinSamples() {
+        return hedgeMinSamples;
+    }
+
+    public long getMinHedgeDelayMillis() {
+        return minHedgeDelayMillis;
+    }
+
+    public long getMaxHedgeDelayMillis() {
+        return maxHedgeDelayMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    public long getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+
+    public long getTotalBudgetMillis() {
+        return totalBudgetMillis;
+    }
+
+    public boolean isTransient(Throwable error) {
+        return transientErrors.isTransient(error);
+    }
+
+    public static final class Builder {
+
+        private boolean hedgingEnabled = true;
+        private int hedgeMinSamples = 20;
+        private long minHedgeDelayMillis = 500;
+        private long maxHedgeDelayMillis = 5_000;
+        private int maxAttempts = 3;
+        private long retryBaseDelayMillis = 250;
+        private long retryMaxDelayMillis = 2_000;
+        private long totalBudgetMillis = 15_000;
+        private TransientErrorPredicate transientErrors = IO_ERRORS;
+
+        public Builder hedging(boolean enabled) {
+            this.hedgingEnabled = enabled;
+            return this;
+        }
+
+        public Builder hedgeDelay(int minSamples, long minDelayMillis, long maxDelayMillis) {
+            this.hedgeMinSamples = minSamples;
+            this.minHedgeDelayMillis = minDelayMillis;
+            this.maxHedgeDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * @param maxAttempts attempts including the first one; 1 disables retries
+         */
+        public Builder retries(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+            this.maxAttempts = maxAttempts;
+            this.retryBaseDelayMillis = baseDelayMillis;
+            this.retryMaxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        public Builder totalBudget(long budgetMillis) {
+            this.totalBudgetMillis = budgetMillis;
+            return this;
+        }
+
+        public Builder transientErrors(TransientErrorPredicate predicate) {
+            this.transientErrors = predicate;
+            return this;
+        }
+
+        public ResiliencePolicy build() {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("At least one attempt is required");
+            }
+            if (minHedgeDelayMillis > maxHedgeDelayMillis) {
+                throw new IllegalArgumentException("Minimum hedge delay exceeds the maximum");
+            }
+            return new ResiliencePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.metrics.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Makes another along route search tolerant to slow and failing requests, as configured by
+ * a {@link ResiliencePolicy}. A request still running after the observed p95 latency is
+ * hedged with a duplicate and whichever answers first wins; the other one is cancelled.
+ * Transient errors are retried with jittered exponential backoff within a total time budget.
+ * <p>
+ * Every attempt is subscribed on {@code scheduler}, so a delegate that blocks while it
+ * waits for the network does not hold back its hedge. Latencies and the time budget are
+ * measured on the clock of {@code scheduler} too.
+ */
+public class ResilientAlongRouteSearch implements AlongRouteSearch {
+
+    private final AlongRouteSearch delegate;
+    private final ResiliencePolicy policy;
+    private final Scheduler scheduler;
+    private final Random random;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    public ResilientAlongRouteSearch(AlongRouteSearch delegate, ResiliencePolicy policy, Scheduler scheduler) {
+        this(delegate, policy, scheduler, new Random());
+    }
+
+    /**
+     * @param random source of the backoff jitter
+     */
+    public ResilientAlongRouteSearch(AlongRouteSearch delegate, ResiliencePolicy policy, Scheduler scheduler,
+                                     Random random) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.scheduler = scheduler;
+        this.random = random;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> {
+            long deadline = scheduler.now(TimeUnit.MILLISECONDS) + policy.getTotalBudgetMillis();
+            return attempt(route, query, maxDetourTime, limit, 0, deadline);
+        });
+    }
+
+    /**
+     * @return the delay after which a request is hedged, at the current p95 latency
+     */
+    public long getHedgeDelayMillis() {
+        if (latency.getCount() < policy.getHedgeMinSamples()) {
+            return policy.getMaxHedgeDelayMillis();
+        }
+        long p95 = (long) Math.ceil(latency.getPercentileMillis(95));
+        return Math.max(policy.getMinHedgeDelayMillis(), Math.min(policy.getMaxHedgeDelayMillis(), p95));
+    }
+
+    public long getHedgeCount() {
+        return hedgeCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ResilientAlongRouteSearch{hedges=" + hedgeCount + ", retries=" + retryCount
+                + ", hedgeDelayMs=" + getHedgeDelayMillis() + "}";
+    }
+
+    private Single<List<RoutePoi>> attempt(final RouteGeometry route, final String query, final int maxDetourTime,
+                                           final int limit, final int attempt, final long deadline) {
+        return hedged(route, query, maxDetourTime, limit)
+                .onErrorResumeNext(error -> {
+                    long delay = backoffMillis(attempt);
+                    if (!policy.isTransient(error) || attempt + 1 >= policy.getMaxAttempts()
+                            || scheduler.now(TimeUnit.MILLISECONDS) + delay >= deadline) {
+                        return Single.error(error);
+                    }
+                    retryCount.incrementAndGet();
+                    return Single.timer(delay, TimeUnit.MILLISECONDS, scheduler)
+                            .flatMap(tick -> attempt(route, query, maxDetourTime, limit, attempt + 1, deadline));
+                });
+    }
+
+    private Single<List<RoutePoi>> hedged(final RouteGeometry route, final String query,
+                                          final int maxDetourTime, final int limit) {
+        Single<List<RoutePoi>> primary = timed(route, query, maxDetourTime, limit);
+        if (!policy.isHedgingEnabled()) {
+            return primary;
+        }
+        Single<List<RoutePoi>> hedge = Single.timer(getHedgeDelayMillis(), TimeUnit.MILLISECONDS, scheduler)
+                .flatMap(tick -> {
+                    hedgeCount.incrementAndGet();
+                    return timed(route, query, maxDetourTime, limit);
+                });
+        return Single.amb(Arrays.asList(primary, hedge));
+    }
+
+    private Single<List<RoutePoi>> timed(RouteGeometry route, String query, int maxDetourTime, int limit) {
+        return Single.defer(() -> {
+            final long start = scheduler.now(TimeUnit.NANOSECONDS);
+            return delegate.search(route, query, maxDetourTime, limit)
+                    .doOnSuccess(results -> latency.recordNanos(scheduler.now(TimeUnit.NANOSECONDS) - start));
+        }).subscribeOn(scheduler);
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(policy.getRetryMaxDelayMillis(), policy.getRetryBaseDelayMillis() << Math.min(attempt, 20));
+        synchronized (random) {
+            return (long) (random.nextDouble() * ceiling);
+        }
+    }
+}
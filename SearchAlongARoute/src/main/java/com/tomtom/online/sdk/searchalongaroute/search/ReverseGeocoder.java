@@ -0,0 +1,17 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+
+import io.reactivex.Maybe;
+
+/**
+ * Finds the address nearest to a position.
+ */
+public interface ReverseGeocoder {
+
+    /**
+     * @return the position of the nearest address, or nothing when there is no address
+     * near {@code position}
+     */
+    Maybe<GeoPosition> reverseGeocode(GeoPosition position);
+}
@@ -0,0 +1,92 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+/**
+ * Immutable along route search result, positioned by its distance from the start of the route.
+ */
+public final class RoutePoi {
+
+    private final String id;
+    private final String name;
+    private final String address;
+    private final double latitude;
+    private final double longitude;
+    private final double distanceAlongRouteMeters;
+    private final String category;
+
+    public RoutePoi(String id, String name, String address,
+                    double latitude, double longitude, double distanceAlongRouteMeters) {
+        this(id, name, address, latitude, longitude, distanceAlongRouteMeters, null);
+    }
+
+    /**
+     * @param category query of a multi-category search the POI was found by, or {@code null}
+     */
+    public RoutePoi(String id, String name, String address,
+                    double latitude, double longitude, double distanceAlongRouteMeters, String category) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceAlongRouteMeters = distanceAlongRouteMeters;
+        this.category = category;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getDistanceAlongRouteMeters() {
+        return distanceAlongRouteMeters;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Copy of the POI with its distance along the route shifted by {@code offsetMeters}, used
+     * for results of a search along a part of the route.
+     */
+    public RoutePoi offsetAlongRoute(double offsetMeters) {
+        return new RoutePoi(id, name, address, latitude, longitude, distanceAlongRouteMeters + offsetMeters, category);
+    }
+
+    /**
+     * Copy of the POI at {@code distanceAlongRouteMeters}, used for results projected onto
+     * another geometry of the route.
+     */
+    public RoutePoi atDistanceAlongRoute(double distanceAlongRouteMeters) {
+        return new RoutePoi(id, name, address, latitude, longitude, distanceAlongRouteMeters, category);
+    }
+
+    /**
+     * Copy of the POI tagged with the query it was found by.
+     */
+    public RoutePoi withCategory(String category) {
+        return new RoutePoi(id, name, address, latitude, longitude, distanceAlongRouteMeters, category);
+    }
+
+    /**
+     * Identity of the POI across responses: the service id, or the position when no id is present.
+     */
+    public String getKey() {
+        return id != null ? id : latitude + "," + longitude;
+    }
+}
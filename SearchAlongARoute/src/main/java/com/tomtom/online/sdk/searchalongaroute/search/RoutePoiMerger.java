@@ -0,0 +1,24 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merges result lists of several along route searches into one list without duplicates,
+ * ordered by distance along the route. Duplicates are told apart by the rule of
+ * {@link PoiDeduplicator}.
+ */
+public final class RoutePoiMerger {
+
+    private RoutePoiMerger() {
+    }
+
+    public static List<RoutePoi> merge(List<List<RoutePoi>> resultLists) {
+        return PoiDeduplicator.merge(resultLists);
+    }
+
+    public static void sortByDistanceAlongRoute(List<RoutePoi> pois) {
+        Collections.sort(pois, (first, second) ->
+                Double.compare(first.getDistanceAlongRouteMeters(), second.getDistanceAlongRouteMeters()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegment;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSegmenter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Searches along a route by splitting it into overlapping corridor segments and querying
+ * them concurrently. Every segment returns up to the query limit, so results are spread
+ * over the whole route, and the total latency is bound by the slowest segment rather than
+ * by one request for the full route. Routes shorter than one segment are searched with a
+ * single request. Each segment is searched by the corridor search, and the distance along
+ * the segment of its results is shifted by the start of the segment; results are returned
+ * in that order.
+ */
+public class SegmentedAlongRouteSearch implements AlongRouteSearch {
+
+    public static final double DEFAULT_SEGMENT_LENGTH_METERS = 100_000;
+    public static final double DEFAULT_OVERLAP_METERS = 5_000;
+
+    private final AlongRouteSearch corridorSearch;
+    private final Scheduler scheduler;
+    private final int maxConcurrentSegments;
+    private final double segmentLengthMeters;
+    private final double overlapMeters;
+
+    public SegmentedAlongRouteSearch(AlongRouteSearch corridorSearch, Scheduler scheduler, int maxConcurrentSegments) {
+        this(corridorSearch, scheduler, maxConcurrentSegments, DEFAULT_SEGMENT_LENGTH_METERS, DEFAULT_OVERLAP_METERS);
+    }
+
+    /**
+     * @param corridorSearch searches a single segment
+     * @param scheduler      segment searches are subscribed on
+     */
+    public SegmentedAlongRouteSearch(AlongRouteSearch corridorSearch, Scheduler scheduler, int maxConcurrentSegments,
+                                     double segmentLengthMeters, double overlapMeters) {
+        this.corridorSearch = corridorSearch;
+        this.scheduler = scheduler;
+        this.maxConcurrentSegments = maxConcurrentSegments;
+        this.segmentLengthMeters = segmentLengthMeters;
+        this.overlapMeters = overlapMeters;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limitPerSegment) {
+        return Single.fromCallable(() -> RouteSegmenter.split(route, segmentLengthMeters, overlapMeters))
+                .flatMap(segments -> Flowable.fromIterable(segments)
+                        .flatMapSingle(segment -> searchSegment(segment, query, maxDetourTime, limitPerSegment),
+                                false, maxConcurrentSegments)
+                        .toList())
+                .map(RoutePoiMerger::merge);
+    }
+
+    private Single<List<RoutePoi>> searchSegment(final RouteSegment segment, final String query,
+                                                 final int maxDetourTime, final int limit) {
+        return corridorSearch.search(segment.getGeometry(), query, maxDetourTime, limit)
+                .subscribeOn(scheduler)
+                .map(pois -> offsetAlongRoute(pois, segment.getStartOffsetMeters()));
+    }
+
+    private static List<RoutePoi> offsetAlongRoute(List<RoutePoi> pois, double offsetMeters) {
+        if (offsetMeters == 0) {
+            return pois;
+        }
+        List<RoutePoi> offsetPois = new ArrayList<>(pois.size());
+        for (RoutePoi poi : pois) {
+            offsetPois.add(poi.offsetAlongRoute(offsetMeters));
+        }
+        return offsetPois;
+    }
+}
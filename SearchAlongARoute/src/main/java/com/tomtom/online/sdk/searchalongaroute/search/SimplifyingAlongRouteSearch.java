@@ -0,0 +1,52 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteProjector;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteSimplifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Single;
+
+/**
+ * Simplifies the route of every search for the detour budget of that search before passing
+ * it on, so each step of a progressive search sends a route whose error is small against
+ * its own corridor, see {@link RouteSimplifier#toleranceForDetour(int)}. The route is
+ * simplified on the thread that subscribes.
+ * <p>
+ * Only the request uses the simplified route: the results are projected onto the route
+ * passed in, so their distances along the route match the route the user sees. This is
+ * the only stage that projects; {@link OnlineAlongRouteSearch} leaves the distances at zero.
+ */
+public class SimplifyingAlongRouteSearch implements AlongRouteSearch {
+
+    private final AlongRouteSearch delegate;
+
+    public SimplifyingAlongRouteSearch(AlongRouteSearch delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Single<List<RoutePoi>> search(final RouteGeometry route, final String query,
+                                         final int maxDetourTime, final int limit) {
+        return Single.defer(() -> delegate.search(
+                RouteSimplifier.simplify(route, RouteSimplifier.toleranceForDetour(maxDetourTime)).getGeometry(),
+                query, maxDetourTime, limit))
+                .map(results -> projectOnto(route, results));
+    }
+
+    static List<RoutePoi> projectOnto(RouteGeometry route, List<RoutePoi> results) {
+        if (results.isEmpty()) {
+            return results;
+        }
+        RouteProjector projector = RouteProjector.build(route);
+        List<RoutePoi> projected = new ArrayList<>(results.size());
+        for (RoutePoi poi : results) {
+            projected.add(poi.atDistanceAlongRoute(
+                    projector.distanceAlongRoute(poi.getLatitude(), poi.getLongitude())));
+        }
+        RoutePoiMerger.sortByDistanceAlongRoute(projected);
+        return projected;
+    }
+}
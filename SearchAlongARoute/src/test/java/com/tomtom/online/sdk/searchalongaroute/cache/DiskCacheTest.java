@@ -0,0 +1,52 @@
+package com.tomtom.online.sdk.searchalongaroute.cache;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class DiskCacheTest {
+
+    private static final int VERSION = 1;
+    private static final long TIME_TO_LIVE_MILLIS = 60_000;
+    /**
+     * Header of an entry with a one character key: magic, version, expiry, key length, key.
+     */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 1;
+    private static final int PAYLOAD_BYTES = 80;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackThePayload() throws IOException {
+        DiskCache cache = new DiskCache(folder.getRoot(), 1_000);
+        cache.put("a", VERSION, new byte[]{1, 2, 3}, TIME_TO_LIVE_MILLIS);
+
+        ByteBuffer payload = cache.get("a", VERSION);
+
+        assertEquals(3, payload.remaining());
+        assertEquals(3, payload.get(2));
+        assertNull(cache.get("a", VERSION + 1));
+    }
+
+    @Test
+    public void hitMakesTheEntryMostRecentlyUsed() throws IOException {
+        DiskCache cache = new DiskCache(folder.getRoot(), 2 * (HEADER_BYTES + PAYLOAD_BYTES));
+        cache.put("a", VERSION, new byte[PAYLOAD_BYTES], TIME_TO_LIVE_MILLIS);
+        cache.put("b", VERSION, new byte[PAYLOAD_BYTES], TIME_TO_LIVE_MILLIS);
+        assertNotNull(cache.get("a", VERSION));
+
+        cache.put("c", VERSION, new byte[PAYLOAD_BYTES], TIME_TO_LIVE_MILLIS);
+
+        assertNull(cache.get("b", VERSION));
+        assertNotNull(cache.get("a", VERSION));
+        assertNotNull(cache.get("c", VERSION));
+    }
+}
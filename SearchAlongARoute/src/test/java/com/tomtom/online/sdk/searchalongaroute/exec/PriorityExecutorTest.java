@@ -0,0 +1,97 @@
+package com.tomtom.online.sdk.searchalongaroute.exec;
+
+import com.tomtom.online.sdk.searchalongaroute.metrics.ServiceMetrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PriorityExecutorTest {
+
+    private static final int SPECULATIVE_FLOOD = 100;
+
+    private final PriorityExecutor executor = new PriorityExecutor("test", 2, 1, new ServiceMetrics());
+    private final CountDownLatch speculativeGate = new CountDownLatch(1);
+    private final AtomicInteger speculativeStarted = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        speculativeGate.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void floodOfSpeculativeTasksDoesNotDelayAUserTask() throws InterruptedException {
+        floodWithBlockedSpeculativeTasks();
+
+        // Runs on the thread the speculative bound keeps free, while every speculative task waits.
+        String result = Single.fromCallable(() -> Thread.currentThread().getName())
+                .subscribeOn(executor.getScheduler(Priority.USER))
+                .timeout(5, TimeUnit.SECONDS)
+                .blockingGet();
+
+        assertTrue(result.startsWith("test-"));
+        assertEquals(1, speculativeStarted.get());
+        assertEquals(SPECULATIVE_FLOOD - 1, executor.getQueueMetrics(Priority.SPECULATIVE).getDepth());
+    }
+
+    @Test
+    public void queuedUserTaskRunsBeforeQueuedSpeculativeTasks() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch userGate = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        // Both threads busy: one with a speculative task, one with a user task.
+        executor.execute(Priority.SPECULATIVE, () -> {
+            await(speculativeGate);
+            done.countDown();
+        });
+        executor.execute(Priority.USER, () -> await(userGate));
+        executor.execute(Priority.SPECULATIVE, () -> {
+            order.add("speculative");
+            done.countDown();
+        });
+        executor.execute(Priority.USER, () -> {
+            order.add("user");
+            done.countDown();
+        });
+
+        // Only one thread frees up, so it runs both queued tasks one after the other.
+        speculativeGate.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("user", "speculative"), order);
+        userGate.countDown();
+    }
+
+    private void floodWithBlockedSpeculativeTasks() throws InterruptedException {
+        final CountDownLatch firstStarted = new CountDownLatch(1);
+        for (int i = 0; i < SPECULATIVE_FLOOD; i++) {
+            executor.execute(Priority.SPECULATIVE, () -> {
+                speculativeStarted.incrementAndGet();
+                firstStarted.countDown();
+                await(speculativeGate);
+            });
+        }
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
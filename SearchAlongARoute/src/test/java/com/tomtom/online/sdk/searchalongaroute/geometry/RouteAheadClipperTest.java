@@ -0,0 +1,53 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RouteAheadClipperTest {
+
+    private static final double LATITUDE = 52.12;
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{
+            LATITUDE, 4.81, LATITUDE, 4.85, LATITUDE, 4.90, LATITUDE, 4.95, LATITUDE, 4.99});
+
+    @Test
+    public void clipsFromThePositionOfTheVehicle() {
+        RouteAheadClipper clipper = new RouteAheadClipper(ROUTE, RouteAheadClipper.NO_HORIZON, 0);
+
+        RouteSegment ahead = clipper.clip(north(100), 4.92);
+
+        assertEquals(ROUTE.getDistanceAlongRoute(2), ahead.getStartOffsetMeters(), 1e-6);
+        assertEquals(3, ahead.getGeometry().getPointCount());
+    }
+
+    @Test
+    public void clipsFromTheDepartureWhenTheVehicleIsOffTheRoute() {
+        RouteAheadClipper clipper = new RouteAheadClipper(ROUTE, RouteAheadClipper.NO_HORIZON, 0);
+
+        assertEquals(0, clipper.clip(north(600), 4.92).getStartOffsetMeters(), 0);
+        assertEquals(0, clipper.clip(46.0, 11.0).getStartOffsetMeters(), 0);
+    }
+
+    @Test
+    public void rejectsAFarVehicleQuickly() {
+        double[] coordinates = new double[2 * 20_000];
+        for (int i = 0; i < coordinates.length; i += 2) {
+            coordinates[i] = 45.0 + i * 0.00025;
+            coordinates[i + 1] = 0.1 * Math.sin(i * 0.001);
+        }
+        RouteAheadClipper clipper = new RouteAheadClipper(RouteGeometry.fromDegrees(coordinates),
+                RouteAheadClipper.NO_HORIZON, 0);
+        clipper.prepare();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, clipper.clip(50.0, 8.0 + i * 0.01).getStartOffsetMeters(), 0);
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 1_000);
+    }
+
+    private static double north(double meters) {
+        return LATITUDE + meters / GeoMath.METERS_PER_DEGREE;
+    }
+}
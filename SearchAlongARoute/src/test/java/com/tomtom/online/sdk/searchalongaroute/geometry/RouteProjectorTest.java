@@ -0,0 +1,68 @@
+package com.tomtom.online.sdk.searchalongaroute.geometry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RouteProjectorTest {
+
+    @Test
+    public void findsTheSameSegmentAsAScanOfEveryLeg() {
+        Random random = new Random(7);
+        double[] coordinates = new double[2 * 400];
+        double latitude = 52.0;
+        double longitude = 4.8;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            // Mostly short legs with the occasional long diagonal jump.
+            double leg = i % 50 == 0 ? 0.5 : 0.01;
+            latitude += (random.nextDouble() - 0.3) * leg;
+            longitude += (random.nextDouble() - 0.3) * leg;
+            coordinates[i] = latitude;
+            coordinates[i + 1] = longitude;
+        }
+        RouteGeometry route = RouteGeometry.fromDegrees(coordinates);
+        RouteProjector projector = RouteProjector.build(route);
+
+        for (int i = 0; i < 2_000; i++) {
+            // Positions near the route as well as far outside its bounding box.
+            double spread = i % 10 == 0 ? 20 : 3;
+            double positionLatitude = 52.0 + (random.nextDouble() - 0.5) * spread;
+            double positionLongitude = 4.8 + (random.nextDouble() - 0.5) * spread;
+            int segment = projector.nearestSegment(positionLatitude, positionLongitude);
+            assertEquals(Math.sqrt(scannedDistanceSquared(route, positionLatitude, positionLongitude)),
+                    Math.sqrt(route.squaredDistanceToSegment(segment, positionLatitude, positionLongitude)), 1e-6);
+        }
+    }
+
+    @Test
+    public void projectsOntoASingleLongDiagonalSegment() {
+        RouteGeometry route = RouteGeometry.fromDegrees(new double[]{45.0, 0.0, 54.0, 12.0});
+        RouteProjector projector = RouteProjector.build(route);
+
+        assertEquals(0, projector.nearestSegment(49.5, 6.0));
+        assertEquals(route.getLengthMeters() / 2, projector.distanceAlongRoute(49.5, 6.0), 10_000);
+    }
+
+    @Test
+    public void findsNoSegmentBeyondTheMaximumDistance() {
+        RouteGeometry route = RouteGeometry.fromDegrees(new double[]{52.12, 4.81, 52.12, 4.99});
+        RouteProjector projector = RouteProjector.build(route);
+        double north = 52.12 + 400 / GeoMath.METERS_PER_DEGREE;
+        double farNorth = 52.12 + 600 / GeoMath.METERS_PER_DEGREE;
+
+        assertEquals(0, projector.nearestSegment(north, 4.9, 500));
+        assertEquals(-1, projector.nearestSegment(farNorth, 4.9, 500));
+        assertEquals(-1, projector.nearestSegment(47.0, 4.9, 500));
+        assertEquals(0, projector.nearestSegment(47.0, 4.9));
+    }
+
+    private static double scannedDistanceSquared(RouteGeometry route, double latitude, double longitude) {
+        double best = Double.MAX_VALUE;
+        for (int segment = 0; segment < route.getPointCount() - 1; segment++) {
+            best = Math.min(best, route.squaredDistanceToSegment(segment, latitude, longitude));
+        }
+        return best;
+    }
+}
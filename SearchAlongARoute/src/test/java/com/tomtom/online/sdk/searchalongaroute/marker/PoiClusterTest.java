@@ -0,0 +1,43 @@
+package com.tomtom.online.sdk.searchalongaroute.marker;
+
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class PoiClusterTest {
+
+    private static final RoutePoi POI = new RoutePoi("1", "Fuel", "Street 1", 52.1, 4.9, 1_000, "fuel");
+
+    @Test
+    public void contentKeyOfTheSamePoiIsStable() {
+        assertEquals(single(POI).getContentKey(),
+                single(new RoutePoi("1", "Fuel", "Street 1", 52.1, 4.9, 1_000, "fuel")).getContentKey());
+    }
+
+    @Test
+    public void contentKeyChangesWithTheDistanceAlongTheRoute() {
+        assertEquals(single(POI).getKey(), single(POI.offsetAlongRoute(500)).getKey());
+        assertNotEquals(single(POI).getContentKey(), single(POI.offsetAlongRoute(500)).getContentKey());
+    }
+
+    @Test
+    public void contentKeyChangesWithTheCategory() {
+        assertNotEquals(single(POI).getContentKey(), single(POI.withCategory("parking")).getContentKey());
+    }
+
+    @Test
+    public void contentKeyOfAClusterChangesWithItsMembers() {
+        PoiCluster cluster = new PoiCluster(3, 10, 20, 2, 104.2, 9.8, null);
+        PoiCluster moved = new PoiCluster(3, 10, 20, 2, 104.2, 9.9, null);
+
+        assertEquals(cluster.getKey(), moved.getKey());
+        assertNotEquals(cluster.getContentKey(), moved.getContentKey());
+    }
+
+    private static PoiCluster single(RoutePoi poi) {
+        return new PoiCluster(3, 10, 20, 1, poi.getLatitude(), poi.getLongitude(), poi);
+    }
+}
@@ -0,0 +1,115 @@
+package com.tomtom.online.sdk.searchalongaroute.poi;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+import com.tomtom.online.sdk.searchalongaroute.search.RoutePoi;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.schedulers.Schedulers;
+
+import static com.tomtom.online.sdk.searchalongaroute.poi.PoiIndexTest.north;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LocalAlongRouteSearchTest {
+
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{
+            north(0), 4.81, north(0), 4.99});
+
+    @Test
+    public void corridorIsFiveMetersPerDetourSecond() {
+        assertEquals(500, LocalAlongRouteSearch.corridorForDetour(100), 0);
+        assertEquals(5, LocalAlongRouteSearch.corridorForDetour(1), 0);
+    }
+
+    @Test
+    public void corridorIsCappedAtTenKilometers() {
+        assertEquals(10_000, LocalAlongRouteSearch.corridorForDetour(2000), 0);
+        assertEquals(10_000, LocalAlongRouteSearch.corridorForDetour(3600), 0);
+    }
+
+    @Test
+    public void findsPoisJustInsideTheDetourCorridor() {
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("inside", "Fuel", "", "", north(499.5), 4.85)
+                .add("outside", "Fuel", "", "", north(500.5), 4.86)
+                .build(), Schedulers.trampoline());
+
+        assertEquals(Arrays.asList("inside"), ids(search.searchNow(ROUTE, "fuel", 100, 10)));
+    }
+
+    @Test
+    public void capsTheCorridorOfLongDetours() {
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("inside", "Fuel", "", "", north(9_999), 4.85)
+                .add("outside", "Fuel", "", "", north(10_001), 4.86)
+                .build(), Schedulers.trampoline());
+
+        assertEquals(Arrays.asList("inside"), ids(search.searchNow(ROUTE, "fuel", 3600, 10)));
+    }
+
+    @Test
+    public void keepsTheLimitClosestPoisOfACall() {
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("far", "Fuel", "", "", north(400), 4.82)
+                .add("closest", "Fuel", "", "", north(10), 4.83)
+                .add("farther", "Fuel", "", "", north(300), 4.84)
+                .add("close", "Fuel", "", "", north(-20), 4.85)
+                .build(), Schedulers.trampoline());
+
+        assertEquals(Arrays.asList("closest", "close"), ids(search.searchNow(ROUTE, "fuel", 100, 2)));
+    }
+
+    @Test
+    public void ordersResultsByDistanceAlongTheRoute() {
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("third", "Fuel", "", "", north(10), 4.97)
+                .add("first", "Fuel", "", "", north(300), 4.83)
+                .add("second", "Fuel", "", "", north(-200), 4.91)
+                .build(), Schedulers.trampoline());
+
+        List<RoutePoi> results = search.search(ROUTE, "fuel", 100, 10).blockingGet();
+
+        assertEquals(Arrays.asList("first", "second", "third"), ids(results));
+        double metersPerDegree = GeoMath.metersPerDegreeLongitude(north(0));
+        assertEquals((4.83 - 4.81) * metersPerDegree, results.get(0).getDistanceAlongRouteMeters(), 1);
+        assertEquals((4.97 - 4.81) * metersPerDegree, results.get(2).getDistanceAlongRouteMeters(), 1);
+    }
+
+    @Test
+    public void appliesTheLimitPerWindowOfTheRoute() {
+        // Windows of 5 km along a route of about 12 km.
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("window 0 a", "Fuel", "", "", north(10), 4.82)
+                .add("window 0 b", "Fuel", "", "", north(20), 4.83)
+                .add("window 1", "Fuel", "", "", north(30), 4.91)
+                .add("window 2", "Fuel", "", "", north(40), 4.98)
+                .build(), Schedulers.trampoline(), 5_000);
+
+        List<String> found = ids(search.searchNow(ROUTE, "fuel", 100, 1));
+
+        assertEquals(Arrays.asList("window 0 a", "window 1", "window 2"), found);
+    }
+
+    @Test
+    public void findsNothingForOtherText() {
+        LocalAlongRouteSearch search = new LocalAlongRouteSearch(new PoiIndex.Builder()
+                .add("poi", "Fuel", "", "petrol station", north(10), 4.85)
+                .build(), Schedulers.trampoline());
+
+        assertTrue(search.searchNow(ROUTE, "restaurant", 100, 10).isEmpty());
+    }
+
+    private static List<String> ids(List<RoutePoi> pois) {
+        List<String> ids = new ArrayList<>();
+        for (RoutePoi poi : pois) {
+            ids.add(poi.getId());
+        }
+        return ids;
+    }
+}
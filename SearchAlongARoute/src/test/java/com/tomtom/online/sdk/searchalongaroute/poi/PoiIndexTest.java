@@ -0,0 +1,143 @@
+package com.tomtom.online.sdk.searchalongaroute.poi;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PoiIndexTest {
+
+    /**
+     * A parallel, so the distance of a POI north or south of the route is its latitude offset.
+     */
+    private static final double ROUTE_LATITUDE = 52.12;
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{
+            ROUTE_LATITUDE, 4.81, ROUTE_LATITUDE, 4.99});
+
+    @Test
+    public void findsPoiJustInsideTheBuffer() {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("inside", "Fuel", "Street 1", "petrol station", north(499.5), 4.9)
+                .build();
+
+        assertEquals(Collections.singletonList("inside"), query(index, ROUTE, 500, "fuel"));
+    }
+
+    @Test
+    public void skipsPoiJustOutsideTheBuffer() {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("outside", "Fuel", "Street 1", "petrol station", north(500.5), 4.9)
+                .add("outside south", "Fuel", "Street 2", "petrol station", north(-500.5), 4.9)
+                .build();
+
+        assertEquals(Collections.emptyList(), query(index, ROUTE, 500, "fuel"));
+    }
+
+    @Test
+    public void findsPoisInCellsWithoutRoutePoints() {
+        // The route has no point between 4.81 and 4.99, and runs 6 m south of the 52.15
+        // cell edge, so these POIs lie in cells the route only crosses or passes by.
+        RouteGeometry route = RouteGeometry.fromDegrees(new double[]{52.14995, 4.81, 52.14995, 4.99});
+        PoiIndex index = new PoiIndex.Builder()
+                .add("west of edge", "Fuel", "", "", 52.14995, 4.8999999)
+                .add("east of edge", "Fuel", "", "", 52.14995, 4.9000001)
+                .add("next row", "Fuel", "", "", 52.14995 + 200 / GeoMath.METERS_PER_DEGREE, 4.87)
+                .build();
+
+        List<String> found = query(index, route, 500, "fuel");
+
+        Collections.sort(found);
+        assertEquals(Arrays.asList("east of edge", "next row", "west of edge"), found);
+    }
+
+    @Test
+    public void matchesNameOrCategoryIgnoringCase() {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("by name", "ATM Central", "", "bank", north(10), 4.85)
+                .add("by category", "Corner", "", "Cash Dispenser ATM", north(10), 4.86)
+                .add("other", "Bakery", "", "shop", north(10), 4.87)
+                .build();
+
+        List<String> found = query(index, ROUTE, 500, " atm ");
+
+        Collections.sort(found);
+        assertEquals(Arrays.asList("by category", "by name"), found);
+    }
+
+    @Test
+    public void reportsDistancesFromAndAlongTheRoute() {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("poi", "Fuel", "", "", north(120), 4.9)
+                .build();
+        final double[] distances = new double[2];
+
+        index.queryCorridor(ROUTE, 500, "fuel", (poi, distanceFromRoute, distanceAlongRoute) -> {
+            distances[0] = distanceFromRoute;
+            distances[1] = distanceAlongRoute;
+        });
+
+        assertEquals(120, distances[0], 0.05);
+        assertEquals((4.9 - 4.81) * GeoMath.metersPerDegreeLongitude(ROUTE_LATITUDE), distances[1], 1);
+    }
+
+    @Test
+    public void writeAndReadRoundTrip() throws IOException {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("1", "Fuel Nord", "Stra\u00dfe 1", "petrol station", 52.123456789, 4.9)
+                .add("2", "Caf\u00e9", "", "restaurant", -33.9, 151.2)
+                .add("3", "ATM", "Main Street", "cash dispenser", 52.1, -0.0000001)
+                .build();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        index.write(output);
+        PoiIndex read = PoiIndex.read(new ByteArrayInputStream(output.toByteArray()));
+
+        assertEquals(index.size(), read.size());
+        for (int poi = 0; poi < index.size(); poi++) {
+            assertEquals(index.getId(poi), read.getId(poi));
+            assertEquals(index.getName(poi), read.getName(poi));
+            assertEquals(index.getAddress(poi), read.getAddress(poi));
+            assertEquals(index.getCategory(poi), read.getCategory(poi));
+            assertEquals(index.getLatitude(poi), read.getLatitude(poi), 0);
+            assertEquals(index.getLongitude(poi), read.getLongitude(poi), 0);
+        }
+        assertEquals(query(index, ROUTE, 1000, "fuel"), query(read, ROUTE, 1000, "fuel"));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRejectsOtherFiles() throws IOException {
+        PoiIndex.read(new ByteArrayInputStream(new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0}));
+    }
+
+    @Test
+    public void ignoresRoutesOfOnePoint() {
+        PoiIndex index = new PoiIndex.Builder()
+                .add("poi", "Fuel", "", "", ROUTE_LATITUDE, 4.9)
+                .build();
+        RouteGeometry point = RouteGeometry.fromDegrees(new double[]{ROUTE_LATITUDE, 4.9});
+
+        assertTrue(query(index, point, 500, "fuel").isEmpty());
+    }
+
+    static double north(double meters) {
+        return ROUTE_LATITUDE + meters / GeoMath.METERS_PER_DEGREE;
+    }
+
+    private static List<String> query(final PoiIndex index, RouteGeometry route, double bufferMeters, String text) {
+        final List<String> ids = new ArrayList<>();
+        index.queryCorridor(route, bufferMeters, text,
+                (poi, distanceFromRoute, distanceAlongRoute) -> ids.add(index.getId(poi)));
+        return ids;
+    }
+}
@@ -0,0 +1,99 @@
+package com.tomtom.online.sdk.searchalongaroute.replay;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoPosition;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ServiceArchiveTest {
+
+    private static final GeoPosition POSITION = new GeoPosition(52.12, 4.81);
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{52.12, 4.81, 52.12, 4.99});
+    private static final String GEOCODING_KEY = ServiceArchive.reverseGeocodingKey(POSITION);
+    private static final String ROUTE_KEY = ServiceArchive.routeKey(POSITION, POSITION, null);
+    /**
+     * A complete record of an unknown kind: kind, key "x", latency, response length, response.
+     */
+    private static final byte[] UNKNOWN_RECORD = {9, 2, 'x', 5, 1, 0};
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackTheRecordings() throws IOException {
+        File file = folder.newFile();
+        record(file);
+
+        ServiceArchive archive = new ServiceArchive(file);
+
+        assertEquals(2, archive.size());
+        assertEquals(250, archive.getReverseGeocoding(GEOCODING_KEY).getLatencyMillis());
+        assertEquals(ROUTE.getPointCount(), archive.getRoute(ROUTE_KEY).getResponse().getPointCount());
+    }
+
+    @Test
+    public void dropsAGarbledLastRecordAndKeepsAppending() throws IOException {
+        File file = folder.newFile();
+        record(file);
+        long recordedLength = file.length();
+        appendBytes(file, UNKNOWN_RECORD);
+
+        ServiceArchive archive = new ServiceArchive(file);
+        assertEquals(2, archive.size());
+        assertEquals(recordedLength, file.length());
+
+        archive.recordReverseGeocoding(ServiceArchive.reverseGeocodingKey(new GeoPosition(52.2, 4.9)), 100, null);
+        assertNull(archive.getWriteError());
+        assertEquals(3, new ServiceArchive(file).size());
+    }
+
+    @Test
+    public void dropsJunkAfterTheLastRecord() throws IOException {
+        File file = folder.newFile();
+        record(file);
+        appendBytes(file, new byte[]{3, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, 42});
+
+        ServiceArchive archive = new ServiceArchive(file);
+
+        assertEquals(2, archive.size());
+        assertNotNull(archive.getRoute(ROUTE_KEY));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAGarbledRecordBeforeOthers() throws IOException {
+        File recorded = folder.newFile();
+        record(recorded);
+        byte[] bytes = Files.readAllBytes(recorded.toPath());
+        File file = folder.newFile();
+        // The header, the unknown record, then the records.
+        appendBytes(file, Arrays.copyOf(bytes, 5));
+        appendBytes(file, UNKNOWN_RECORD);
+        appendBytes(file, Arrays.copyOfRange(bytes, 5, bytes.length));
+
+        new ServiceArchive(file).size();
+    }
+
+    private static void record(File file) {
+        ServiceArchive archive = new ServiceArchive(file);
+        archive.recordReverseGeocoding(GEOCODING_KEY, 250, POSITION);
+        archive.recordRoute(ROUTE_KEY, 400, ROUTE);
+    }
+
+    private static void appendBytes(File file, byte[] bytes) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.write(bytes);
+        }
+    }
+}
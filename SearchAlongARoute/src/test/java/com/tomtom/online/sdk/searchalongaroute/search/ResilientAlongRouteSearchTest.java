@@ -0,0 +1,239 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResilientAlongRouteSearchTest {
+
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{52.12, 4.81, 52.12, 4.99});
+    private static final int MAX_DETOUR_TIME = 600;
+    private static final int LIMIT = 5;
+
+    private final TestScheduler scheduler = new TestScheduler();
+
+    @Test
+    public void hedgesOnlyAfterTheP95Latency() {
+        ScriptedSearch fake = new ScriptedSearch(200, 200, 200, 200, 200, 200, 200, 200, 200, 200, 1_000, 1_000);
+        ResilientAlongRouteSearch search = new ResilientAlongRouteSearch(fake, new ResiliencePolicy.Builder()
+                .hedgeDelay(10, 100, 5_000)
+                .build(), scheduler, new Random(1));
+        for (int i = 0; i < 10; i++) {
+            TestObserver<List<RoutePoi>> warmUp = search(search);
+            scheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+            warmUp.assertValueCount(1);
+        }
+        assertEquals(200, search.getHedgeDelayMillis());
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(199, TimeUnit.MILLISECONDS);
+        assertEquals(11, fake.getRequestCount());
+        assertEquals(0, search.getHedgeCount());
+
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        assertEquals(12, fake.getRequestCount());
+        assertEquals(1, search.getHedgeCount());
+        observer.assertNoValues();
+
+        scheduler.advanceTimeBy(800, TimeUnit.MILLISECONDS);
+        observer.assertValueCount(1);
+    }
+
+    @Test
+    public void firstResponseWinsAndTheOtherIsCancelled() {
+        // The primary request takes 1 s; the hedge, sent after 300 ms, answers in 50 ms.
+        ScriptedSearch fake = new ScriptedSearch(1_000, 50);
+        final AtomicInteger cancelled = new AtomicInteger();
+        AlongRouteSearch tracked = (route, query, maxDetourTime, limit) ->
+                fake.search(route, query, maxDetourTime, limit).doOnDispose(cancelled::incrementAndGet);
+        ResilientAlongRouteSearch search = new ResilientAlongRouteSearch(tracked, new ResiliencePolicy.Builder()
+                .hedgeDelay(10, 100, 300)
+                .build(), scheduler, new Random(1));
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(349, TimeUnit.MILLISECONDS);
+        observer.assertNoValues();
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        observer.assertValueCount(1);
+        assertEquals(LIMIT, observer.values().get(0).size());
+        assertEquals(1, cancelled.get());
+        assertEquals(2, fake.getRequestCount());
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+        observer.assertValueCount(1);
+        assertEquals(2, fake.getRequestCount());
+    }
+
+    @Test
+    public void noHedgeWhenThePrimaryAnswersInTime() {
+        ScriptedSearch fake = new ScriptedSearch(250);
+        ResilientAlongRouteSearch search = new ResilientAlongRouteSearch(fake, new ResiliencePolicy.Builder()
+                .hedgeDelay(10, 100, 300)
+                .build(), scheduler, new Random(1));
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+
+        observer.assertValueCount(1);
+        assertEquals(1, fake.getRequestCount());
+        assertEquals(0, search.getHedgeCount());
+    }
+
+    @Test
+    public void backoffGrowsUpToTheMaximumDelay() {
+        // The largest jitter waits just below the ceiling of 100, 200 and then at most 250 ms.
+        List<Long> requestTimes = retryTimes(new ResiliencePolicy.Builder()
+                .hedging(false)
+                .retries(4, 100, 250)
+                .build(), fixedJitter(0.999));
+
+        assertEquals(Arrays.asList(0L, 99L, 298L, 547L), requestTimes);
+    }
+
+    @Test
+    public void jitterStaysBetweenZeroAndTheCeiling() {
+        ResiliencePolicy policy = new ResiliencePolicy.Builder()
+                .hedging(false)
+                .retries(6, 100, 250)
+                .build();
+
+        assertEquals(Arrays.asList(0L, 0L, 0L, 0L, 0L, 0L), retryTimes(policy, fixedJitter(0)));
+        List<Long> requestTimes = retryTimes(policy, new Random(42));
+        long[] ceilings = {100, 200, 250, 250, 250};
+        for (int retry = 0; retry < ceilings.length; retry++) {
+            long delay = requestTimes.get(retry + 1) - requestTimes.get(retry);
+            assertTrue("Retry " + retry + " waited " + delay + " ms", delay >= 0 && delay < ceilings[retry]);
+        }
+    }
+
+    @Test
+    public void stopsRetryingAtTheMaximumAttempts() {
+        ResilientAlongRouteSearch search = failingSearch(new ResiliencePolicy.Builder()
+                .hedging(false)
+                .retries(3, 100, 100)
+                .build(), fixedJitter(0.5));
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+
+        observer.assertError(IOException.class);
+        assertEquals(2, search.getRetryCount());
+    }
+
+    @Test
+    public void doesNotRetryPastTheTotalBudget() {
+        // A retry after 399 ms fits the budget of 500 ms, a second one at 798 ms does not.
+        ResilientAlongRouteSearch search = failingSearch(new ResiliencePolicy.Builder()
+                .hedging(false)
+                .retries(10, 400, 400)
+                .totalBudget(500)
+                .build(), fixedJitter(0.999));
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(399, TimeUnit.MILLISECONDS);
+        observer.assertError(IOException.class);
+
+        assertEquals(1, search.getRetryCount());
+    }
+
+    @Test
+    public void doesNotRetryOtherErrors() {
+        ResilientAlongRouteSearch search = new ResilientAlongRouteSearch(
+                (route, query, maxDetourTime, limit) -> Single.error(new IllegalStateException()),
+                new ResiliencePolicy.Builder().hedging(false).build(), scheduler, new Random(1));
+
+        TestObserver<List<RoutePoi>> observer = search(search);
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+
+        observer.assertError(IllegalStateException.class);
+        assertEquals(0, search.getRetryCount());
+    }
+
+    /**
+     * @return the times of the requests of a search that fails every attempt
+     */
+    private List<Long> retryTimes(ResiliencePolicy policy, Random jitter) {
+        final ScriptedSearch fake = new ScriptedSearch();
+        final List<Long> requestTimes = new ArrayList<>();
+        final long start = scheduler.now(TimeUnit.MILLISECONDS);
+        AlongRouteSearch timed = (route, query, maxDetourTime, limit) -> fake.search(route, query, maxDetourTime, limit)
+                .doOnSubscribe(disposable -> requestTimes.add(scheduler.now(TimeUnit.MILLISECONDS) - start));
+        TestObserver<List<RoutePoi>> observer = search(new ResilientAlongRouteSearch(timed, policy, scheduler, jitter));
+        scheduler.advanceTimeBy(1, TimeUnit.HOURS);
+        observer.assertError(IOException.class);
+        return requestTimes;
+    }
+
+    private ResilientAlongRouteSearch failingSearch(ResiliencePolicy policy, Random jitter) {
+        return new ResilientAlongRouteSearch(new ScriptedSearch(), policy, scheduler, jitter);
+    }
+
+    private TestObserver<List<RoutePoi>> search(AlongRouteSearch search) {
+        TestObserver<List<RoutePoi>> observer = search.search(ROUTE, "fuel", MAX_DETOUR_TIME, LIMIT).test();
+        scheduler.triggerActions();
+        return observer;
+    }
+
+    private static Random fixedJitter(final double fraction) {
+        return new Random() {
+            @Override
+            public double nextDouble() {
+                return fraction;
+            }
+        };
+    }
+
+    /**
+     * Answers the requests with {@link #LIMIT} POIs after the given latencies, in order, on
+     * the test scheduler. Without latencies, every request fails at once.
+     */
+    private final class ScriptedSearch implements AlongRouteSearch {
+
+        private final long[] latenciesMillis;
+        private final AtomicInteger requestCount = new AtomicInteger();
+
+        ScriptedSearch(long... latenciesMillis) {
+            this.latenciesMillis = latenciesMillis;
+        }
+
+        int getRequestCount() {
+            return requestCount.get();
+        }
+
+        @Override
+        public Single<List<RoutePoi>> search(RouteGeometry route, String query, int maxDetourTime, int limit) {
+            return Single.defer(() -> {
+                int request = requestCount.getAndIncrement();
+                if (latenciesMillis.length == 0) {
+                    return Single.timer(0, TimeUnit.MILLISECONDS, scheduler)
+                            .flatMap(tick -> Single.<List<RoutePoi>>error(new IOException("Injected failure")));
+                }
+                return Single.timer(latenciesMillis[request], TimeUnit.MILLISECONDS, scheduler)
+                        .map(tick -> pois(query, limit));
+            });
+        }
+
+        private List<RoutePoi> pois(String query, int limit) {
+            List<RoutePoi> pois = new ArrayList<>(limit);
+            for (int i = 0; i < limit; i++) {
+                pois.add(new RoutePoi(query + ":" + i, query, "", ROUTE.getLatitude(0), ROUTE.getLongitude(0), 0));
+            }
+            return pois;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RoutePoiMergerTest {
+
+    @Test
+    public void keepsTheShortestDistanceOfADuplicate() {
+        List<RoutePoi> merged = RoutePoiMerger.merge(Arrays.asList(
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.1, 4.9, 900)),
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.1, 4.9, 700))));
+
+        assertEquals(1, merged.size());
+        assertEquals(700, merged.get(0).getDistanceAlongRouteMeters(), 0);
+    }
+
+    @Test
+    public void keepsPoisWithTheSameIdAtOtherPositions() {
+        List<RoutePoi> merged = RoutePoiMerger.merge(Arrays.asList(
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.1, 4.9, 900)),
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.2, 4.9, 700))));
+
+        assertEquals(2, merged.size());
+    }
+
+    @Test
+    public void mergesPoisWithoutIdByPosition() {
+        List<RoutePoi> merged = RoutePoiMerger.merge(Arrays.asList(
+                Arrays.asList(new RoutePoi(null, "Fuel", "", 52.1, 4.9, 900),
+                        new RoutePoi(null, "Cafe", "", 52.3, 4.9, 100)),
+                Collections.singletonList(new RoutePoi(null, "Fuel", "", 52.1, 4.9, 900))));
+
+        assertEquals(Arrays.asList("Cafe", "Fuel"), names(merged));
+    }
+
+    @Test
+    public void keepsTheCategoryOfTheFirstList() {
+        List<RoutePoi> merged = RoutePoiMerger.merge(Arrays.asList(
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.1, 4.9, 900, "fuel")),
+                Collections.singletonList(new RoutePoi("1", "Fuel", "", 52.1, 4.9, 700, "parking"))));
+
+        assertEquals("fuel", merged.get(0).getCategory());
+        assertEquals(700, merged.get(0).getDistanceAlongRouteMeters(), 0);
+    }
+
+    private static List<String> names(List<RoutePoi> pois) {
+        List<String> names = new ArrayList<>();
+        for (RoutePoi poi : pois) {
+            names.add(poi.getName());
+        }
+        return names;
+    }
+}
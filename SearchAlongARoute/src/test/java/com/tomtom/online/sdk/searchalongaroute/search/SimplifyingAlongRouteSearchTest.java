@@ -0,0 +1,62 @@
+package com.tomtom.online.sdk.searchalongaroute.search;
+
+import com.tomtom.online.sdk.searchalongaroute.geometry.GeoMath;
+import com.tomtom.online.sdk.searchalongaroute.geometry.RouteGeometry;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimplifyingAlongRouteSearchTest {
+
+    private static final double LATITUDE = 52.12;
+    private static final double BUMP_METERS = 200;
+    /**
+     * A parallel with a bump of {@link #BUMP_METERS} north in the middle.
+     */
+    private static final RouteGeometry ROUTE = RouteGeometry.fromDegrees(new double[]{
+            LATITUDE, 4.81, north(BUMP_METERS), 4.90, LATITUDE, 4.99});
+
+    @Test
+    public void simplifiesTheRouteForTheDetourBudgetOfTheCall() {
+        final int[] pointCounts = new int[2];
+        SimplifyingAlongRouteSearch search = new SimplifyingAlongRouteSearch((route, query, maxDetourTime, limit) -> {
+            pointCounts[maxDetourTime == 600 ? 0 : 1] = route.getPointCount();
+            return Single.just(Collections.<RoutePoi>emptyList());
+        });
+
+        search.search(ROUTE, "fuel", 600, 10).blockingGet();
+        search.search(ROUTE, "fuel", 3600, 10).blockingGet();
+
+        // 60 m of tolerance keeps the bump, 360 m drops it.
+        assertEquals(3, pointCounts[0]);
+        assertEquals(2, pointCounts[1]);
+    }
+
+    @Test
+    public void projectsResultsOntoTheRoutePassedIn() {
+        SimplifyingAlongRouteSearch search = new SimplifyingAlongRouteSearch((route, query, maxDetourTime, limit) ->
+                Single.just(Arrays.asList(
+                        new RoutePoi("end", "Fuel", "", LATITUDE, 4.99, 0, "fuel"),
+                        new RoutePoi("bump", "Fuel", "", north(BUMP_METERS), 4.90, 0, "fuel"))));
+
+        List<RoutePoi> results = search.search(ROUTE, "fuel", 3600, 10).blockingGet();
+
+        double leg = Math.hypot((4.90 - 4.81) * GeoMath.metersPerDegreeLongitude(LATITUDE), BUMP_METERS);
+        assertEquals("bump", results.get(0).getId());
+        assertEquals(leg, results.get(0).getDistanceAlongRouteMeters(), 1);
+        assertEquals("fuel", results.get(0).getCategory());
+        assertEquals("end", results.get(1).getId());
+        assertEquals(2 * leg, results.get(1).getDistanceAlongRouteMeters(), 1);
+    }
+
+    private static double north(double meters) {
+        return LATITUDE + meters / GeoMath.METERS_PER_DEGREE;
+    }
+}